@@ -0,0 +1,174 @@
+package carpet.helpers;
+
+import carpet.settings.CarpetSettings;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockRedstoneWire;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.init.Bootstrap;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RedstoneWireTurbo} with its primitive node storage against {@link LegacyRedstoneWireTurbo}, the previous
+ * implementation with a HashMap of UpdateNode objects, which created 24 BlockPos and two neighbor arrays per expanded node
+ *
+ * Both run on a carpet of redstone dust on stone, 16 blocks long, in a world that only keeps block states. A redstone
+ * block next to a corner of the carpet is placed and removed, and the dust is updated after each change the same way
+ * BlockRedstoneWire does with rule fastRedstoneDust. The setup checks that both implementations send the same block
+ * updates and make the same state changes in the same order
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RedstoneWireTurboBenchmark
+{
+    private static final int LENGTH = 16;
+    private static final BlockPos SOURCE = new BlockPos(-1, 1, 0);
+    private static final BlockPos FIRST_WIRE = new BlockPos(0, 1, 0);
+
+    // rows of dust along the x axis, 1 is a dust line
+    @Param({"1", "4", "16"})
+    public int width;
+
+    private interface WireUpdater
+    {
+        IBlockState updateSurroundingRedstone(World worldIn, BlockPos pos, IBlockState state, BlockPos source);
+    }
+
+    private BlockWorld turboWorld;
+    private BlockWorld legacyWorld;
+    private WireUpdater turbo;
+    private WireUpdater legacy;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException
+    {
+        Bootstrap.register();
+        CarpetSettings.fastRedstoneDust = true;
+        BlockRedstoneWire wire = (BlockRedstoneWire) Blocks.REDSTONE_WIRE;
+        this.turbo = new RedstoneWireTurbo(wire)::updateSurroundingRedstone;
+        this.legacy = new LegacyRedstoneWireTurbo(wire)::updateSurroundingRedstone;
+
+        // on a dust line the direction of the signal is always known, on wider carpets some ambiguous directions are random
+        List<String> turboLog = new ArrayList<>();
+        List<String> legacyLog = new ArrayList<>();
+        toggleSource(BlockWorld.create(1, turboLog), this.turbo);
+        toggleSource(BlockWorld.create(1, legacyLog), this.legacy);
+        if (!turboLog.equals(legacyLog))
+        {
+            throw new IllegalStateException("RedstoneWireTurbo update order differs from the legacy one:\n" + turboLog + "\n" + legacyLog);
+        }
+
+        this.turboWorld = BlockWorld.create(this.width, null);
+        this.legacyWorld = BlockWorld.create(this.width, null);
+    }
+
+    /**
+     * Powers and depowers the carpet, as BlockRedstoneWire#neighborChanged does for the wire next to the source
+     */
+    private static int toggleSource(BlockWorld world, WireUpdater updater)
+    {
+        world.setBlockState(SOURCE, Blocks.REDSTONE_BLOCK.getDefaultState(), 3);
+        updater.updateSurroundingRedstone(world, FIRST_WIRE, world.getBlockState(FIRST_WIRE), SOURCE);
+        world.setBlockState(SOURCE, Blocks.AIR.getDefaultState(), 3);
+        updater.updateSurroundingRedstone(world, FIRST_WIRE, world.getBlockState(FIRST_WIRE), SOURCE);
+        return world.updates;
+    }
+
+    @Benchmark
+    public int legacy()
+    {
+        return toggleSource(this.legacyWorld, this.legacy);
+    }
+
+    @Benchmark
+    public int turbo()
+    {
+        return toggleSource(this.turboWorld, this.turbo);
+    }
+
+    /**
+     * A world keeping block states only. The redstone wire only reads and writes block states and sends block updates,
+     * which are counted and logged here. It's created without running the WorldServer constructor, which needs a server
+     */
+    private static class BlockWorld extends WorldServer
+    {
+        private Long2ObjectOpenHashMap<IBlockState> states;
+        private List<String> log;
+        private int updates;
+
+        private BlockWorld()
+        {
+            super(null, null, null, null, null, null);
+        }
+
+        private static BlockWorld create(int width, List<String> log) throws ReflectiveOperationException
+        {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            BlockWorld world = (BlockWorld) ((Unsafe) field.get(null)).allocateInstance(BlockWorld.class);
+            world.states = new Long2ObjectOpenHashMap<>();
+            world.states.defaultReturnValue(Blocks.AIR.getDefaultState());
+            for (int x = 0; x < LENGTH; x++)
+            {
+                for (int z = 0; z < width; z++)
+                {
+                    world.states.put(new BlockPos(x, 0, z).toLong(), Blocks.STONE.getDefaultState());
+                    world.states.put(new BlockPos(x, 1, z).toLong(), Blocks.REDSTONE_WIRE.getDefaultState());
+                }
+            }
+            world.log = log;
+            return world;
+        }
+
+        @Override
+        public IBlockState getBlockState(BlockPos pos)
+        {
+            return this.states.get(pos.toLong());
+        }
+
+        @Override
+        public boolean setBlockState(BlockPos pos, IBlockState newState, int flags)
+        {
+            this.states.put(pos.toLong(), newState);
+            if (this.log != null)
+            {
+                this.log.add("set " + pos + " " + newState);
+            }
+            return true;
+        }
+
+        @Override
+        public void neighborChanged(BlockPos pos, Block blockIn, BlockPos fromPos)
+        {
+            this.updates++;
+            if (this.log != null)
+            {
+                this.log.add("update " + pos + " from " + fromPos);
+            }
+        }
+    }
+}
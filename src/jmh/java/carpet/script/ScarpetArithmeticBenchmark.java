@@ -0,0 +1,72 @@
+package carpet.script;
+
+import carpet.script.value.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Suite of number crunching scarpet scripts, for the arithmetic of {@link carpet.script.value.NumericValue}
+ *
+ * The scripts don't touch the world, so they run without a server. Run with -PjmhProfiler=gc and compare
+ * gc.alloc.rate.norm between builds to see the allocations per script run
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScarpetArithmeticBenchmark
+{
+    // counter: integer loop counter and accumulator
+    // coords: integer coordinate math over a 16x16x16 area, like scan and volume expressions
+    // float: floating point math, which can't use the small integer cache
+    // fib: recursive user function calls on small integers
+    @Param({"counter", "coords", "float", "fib"})
+    public String script;
+
+    private ScriptHost host;
+    private Expression expression;
+
+    @Setup
+    public void setup()
+    {
+        String code;
+        switch (this.script)
+        {
+            case "counter":
+                code = "s = 0; loop(10000, s += _ % 7); s";
+                break;
+            case "coords":
+                code = "s = 0; loop(4096, x = _ % 16; y = floor(_ / 256); z = floor(_ / 16) % 16; s += x*x + y*y - z*z); s";
+                break;
+            case "float":
+                code = "s = 0; loop(10000, s += sqrt(_) * 0.5 - _ / 3); s";
+                break;
+            case "fib":
+                code = "fib(n) -> if(n < 2, n, fib(n-1) + fib(n-2)); fib(16)";
+                break;
+            default:
+                throw new IllegalArgumentException(this.script);
+        }
+        this.host = new ScriptHost("benchmark");
+        this.expression = new Expression(code);
+    }
+
+    @Benchmark
+    public Value run()
+    {
+        return this.expression.eval(new Context(this.host));
+    }
+}
@@ -0,0 +1,83 @@
+package carpet.utils;
+
+import net.minecraft.init.Bootstrap;
+import net.minecraft.init.Items;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.NonNullList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link InventoryOptimizer} against the slot by slot scan of vanilla TileEntityHopper#insertStack,
+ * for a hopper pushing into a single chest
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InventoryOptimizerBenchmark
+{
+    // empty: nothing in the chest
+    // full: the chest is full of another item, the hopper chain is clogged
+    // half: the first half of the chest is full of another item
+    @Param({"empty", "full", "half"})
+    public String content;
+
+    private NonNullList<ItemStack> chest;
+    private InventoryOptimizer optimizer;
+    private ItemStack stack;
+
+    @Setup
+    public void setup()
+    {
+        Bootstrap.register();
+        this.chest = NonNullList.withSize(27, ItemStack.EMPTY);
+        int filled = this.content.equals("full") ? 27 : this.content.equals("half") ? 13 : 0;
+        for (int i = 0; i < filled; i++)
+        {
+            this.chest.set(i, new ItemStack(Items.COBBLESTONE, 64));
+        }
+        this.optimizer = new InventoryOptimizer(this.chest);
+        this.optimizer.recalculate();
+        this.stack = new ItemStack(Items.IRON_INGOT);
+    }
+
+    // TileEntityHopper#canCombine
+    private static boolean canCombine(ItemStack stack1, ItemStack stack2)
+    {
+        return stack1.getItem() == stack2.getItem() && stack1.getDamage() == stack2.getDamage() && stack1.getCount() < stack1.getMaxStackSize() && ItemStack.areItemStackTagsEqual(stack1, stack2);
+    }
+
+    @Benchmark
+    public int vanilla()
+    {
+        for (int i = 0; i < this.chest.size(); i++)
+        {
+            ItemStack slot = this.chest.get(i);
+            if (slot.isEmpty() || canCombine(slot, this.stack))
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Benchmark
+    public int optimized()
+    {
+        return this.optimizer.findInsertSlot(this.stack);
+    }
+}
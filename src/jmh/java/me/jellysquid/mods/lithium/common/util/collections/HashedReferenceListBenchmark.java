@@ -0,0 +1,83 @@
+package me.jellysquid.mods.lithium.common.util.collections;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link HashedReferenceList} against the plain ArrayList of vanilla World#tileEntitiesToBeRemoved,
+ * with the contains / removeAll calls World#tickEntities does on it
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HashedReferenceListBenchmark {
+    // loaded tile entities
+    @Param({"1000", "10000"})
+    public int size;
+
+    // tile entities removed in a tick
+    @Param({"10", "100"})
+    public int removed;
+
+    @Param({"vanilla", "lithium"})
+    public String impl;
+
+    private List<Object> loaded;
+    private List<Object> toBeRemoved;
+    private Object[] lookups;
+    private int lookupIndex;
+
+    private List<Object> createList(List<Object> elements) {
+        return this.impl.equals("lithium") ? new HashedReferenceList<>(new ArrayList<>(elements)) : new ArrayList<>(elements);
+    }
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        List<Object> elements = new ArrayList<>();
+        for (int i = 0; i < this.size; i++) {
+            elements.add(new Object());
+        }
+        List<Object> removedElements = new ArrayList<>();
+        for (int i = 0; i < this.removed; i++) {
+            removedElements.add(elements.get(random.nextInt(this.size)));
+        }
+        this.loaded = new ArrayList<>(elements);
+        this.toBeRemoved = this.createList(removedElements);
+        this.lookups = new Object[1024];
+        for (int i = 0; i < this.lookups.length; i++) {
+            // half of the lookups miss
+            this.lookups[i] = random.nextBoolean() ? elements.get(random.nextInt(this.size)) : new Object();
+        }
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return this.toBeRemoved.contains(this.lookups[this.lookupIndex++ & 1023]);
+    }
+
+    // removes the pending tile entities from the loaded ones and puts them back, to keep the state the same
+    @Benchmark
+    public int removeAll() {
+        this.loaded.removeAll(this.toBeRemoved);
+        this.loaded.addAll(this.toBeRemoved);
+        return this.loaded.size();
+    }
+}
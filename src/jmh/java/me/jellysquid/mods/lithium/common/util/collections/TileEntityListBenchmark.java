@@ -0,0 +1,94 @@
+package me.jellysquid.mods.lithium.common.util.collections;
+
+import net.minecraft.init.Bootstrap;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.tileentity.TileEntityChest;
+import net.minecraft.util.math.BlockPos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TileEntityList} against the ArrayList of vanilla World#loadedTileEntityList and World#addedTileEntityList,
+ * for the position lookup of World#getPendingTileEntityAt and the removal of a single tile entity
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TileEntityListBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private List<TileEntity> vanilla;
+    private TileEntityList lithium;
+    private TileEntity[] tileEntities;
+    private BlockPos[] lookups;
+    private int index;
+
+    @Setup
+    public void setup() {
+        Bootstrap.register();
+        Random random = new Random(0);
+        this.tileEntities = new TileEntity[this.size];
+        for (int i = 0; i < this.size; i++) {
+            TileEntity tileEntity = new TileEntityChest();
+            tileEntity.setPos(new BlockPos(random.nextInt(512) - 256, random.nextInt(256), random.nextInt(512) - 256));
+            this.tileEntities[i] = tileEntity;
+        }
+        this.vanilla = new ArrayList<>();
+        for (TileEntity tileEntity : this.tileEntities) {
+            this.vanilla.add(tileEntity);
+        }
+        this.lithium = new TileEntityList(this.vanilla, true);
+        this.lookups = new BlockPos[1024];
+        for (int i = 0; i < this.lookups.length; i++) {
+            this.lookups[i] = random.nextBoolean() ? this.tileEntities[random.nextInt(this.size)].getPos() : new BlockPos(random.nextInt(512) - 256, random.nextInt(256), random.nextInt(512) - 256);
+        }
+    }
+
+    @Benchmark
+    public TileEntity vanillaLookup() {
+        BlockPos pos = this.lookups[this.index++ & 1023];
+        for (TileEntity tileEntity : this.vanilla) {
+            if (!tileEntity.isRemoved() && tileEntity.getPos().equals(pos)) {
+                return tileEntity;
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public TileEntity lithiumLookup() {
+        return this.lithium.getFirstNonRemovedTileEntityAtPosition(this.lookups[this.index++ & 1023].toLong());
+    }
+
+    @Benchmark
+    public boolean vanillaRemoveAdd() {
+        TileEntity tileEntity = this.tileEntities[this.index++ % this.size];
+        this.vanilla.remove(tileEntity);
+        return this.vanilla.add(tileEntity);
+    }
+
+    @Benchmark
+    public boolean lithiumRemoveAdd() {
+        TileEntity tileEntity = this.tileEntities[this.index++ % this.size];
+        this.lithium.remove(tileEntity);
+        return this.lithium.add(tileEntity);
+    }
+}
@@ -0,0 +1,157 @@
+package me.jellysquid.mods.lithium.common.world.scheduler;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectAVLTreeMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectSortedMap;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.NextTickListEntry;
+import net.minecraft.world.TickPriority;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The tick entry bookkeeping of {@link LithiumServerTickScheduler} against the TreeSet + HashSet of vanilla ServerTickList
+ *
+ * The scheduler itself needs a loaded world, so this replays its data structure operations: every benchmark call is
+ * one game tick scheduling new tile ticks with a delay of 1 - 8 gt, like repeaters and observers do, and then taking
+ * out every tick which is due
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TickSchedulerBenchmark {
+    private static final Object TARGET = new Object();
+    private static final TickPriority[] PRIORITIES = TickPriority.values();
+
+    // tile ticks scheduled per game tick
+    @Param({"100", "1000", "10000"})
+    public int ticksPerGameTick;
+
+    private BlockPos[] positions;
+    private int[] delays;
+    private int[] priorities;
+    private int cursor;
+    private long time;
+
+    // vanilla
+    private final TreeSet<NextTickListEntry<Object>> vanillaOrdered = new TreeSet<>();
+    private final Set<NextTickListEntry<Object>> vanillaSet = new HashSet<>();
+
+    // lithium
+    private final Long2ObjectSortedMap<TickEntryQueue<Object>> scheduledTicksOrdered = new Long2ObjectAVLTreeMap<>();
+    private final Long2ObjectOpenHashMap<ChunkTickIndex<Object>> scheduledTicksByChunk = new Long2ObjectOpenHashMap<>();
+    private final TickEntryIndex<Object> scheduledTicks = new TickEntryIndex<>();
+    private final List<TickEntry<Object>> executingTicks = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        // a pool of positions large enough that a position is rarely scheduled twice at once
+        int pool = this.ticksPerGameTick * 16;
+        this.positions = new BlockPos[pool];
+        this.delays = new int[pool];
+        this.priorities = new int[pool];
+        for (int i = 0; i < pool; i++) {
+            this.positions[i] = new BlockPos(random.nextInt(256) - 128, random.nextInt(256), random.nextInt(256) - 128);
+            this.delays[i] = 1 + random.nextInt(8);
+            this.priorities[i] = random.nextInt(PRIORITIES.length);
+        }
+    }
+
+    private NextTickListEntry<Object> nextEntry() {
+        int i = this.cursor++ % this.positions.length;
+        return new NextTickListEntry<>(this.positions[i], TARGET, this.time + this.delays[i], PRIORITIES[this.priorities[i]]);
+    }
+
+    @Benchmark
+    public int vanilla() {
+        this.time++;
+        for (int i = 0; i < this.ticksPerGameTick; i++) {
+            NextTickListEntry<Object> entry = this.nextEntry();
+            if (this.vanillaSet.add(entry)) {
+                this.vanillaOrdered.add(entry);
+            }
+        }
+        int executed = 0;
+        while (!this.vanillaOrdered.isEmpty() && this.vanillaOrdered.first().scheduledTime <= this.time) {
+            NextTickListEntry<Object> entry = this.vanillaOrdered.pollFirst();
+            this.vanillaSet.remove(entry);
+            executed++;
+        }
+        return executed;
+    }
+
+    @Benchmark
+    public int lithium() {
+        this.time++;
+        for (int i = 0; i < this.ticksPerGameTick; i++) {
+            NextTickListEntry<Object> tick = this.nextEntry();
+            TickEntry<Object> entry = this.scheduledTicks.get(tick.position, tick.getTarget());
+            if (entry == null) {
+                entry = new TickEntry<>(tick, this.scheduledTicksByChunk.computeIfAbsent(getChunkKey(tick.position), key -> new ChunkTickIndex<>()));
+                this.scheduledTicks.put(entry);
+            }
+            if (!entry.scheduled) {
+                this.scheduledTicksOrdered.computeIfAbsent(getBucketKey(tick.scheduledTime, tick.priority), key -> new TickEntryQueue<>()).push(entry);
+                entry.scheduled = true;
+            }
+        }
+
+        long headKey = getBucketKey(this.time + 1, TickPriority.EXTREMELY_HIGH) - 1;
+        Iterator<TickEntryQueue<Object>> it = this.scheduledTicksOrdered.headMap(headKey).values().iterator();
+        while (it.hasNext()) {
+            TickEntryQueue<Object> queue = it.next();
+            for (int i = 0; i < queue.size(); i++) {
+                TickEntry<Object> tick = queue.getTickAtIndex(i);
+                if (tick.scheduled) {
+                    tick.scheduled = false;
+                    this.executingTicks.add(tick);
+                }
+            }
+            it.remove();
+        }
+
+        int executed = this.executingTicks.size();
+        for (TickEntry<Object> tick : this.executingTicks) {
+            tick.consumed = true;
+            tick.chunkIdx.remove(tick);
+            if (tick.chunkIdx.isEmpty() && this.scheduledTicksByChunk.get(getChunkKey(tick.position)) == tick.chunkIdx) {
+                this.scheduledTicksByChunk.remove(getChunkKey(tick.position));
+            }
+            this.scheduledTicks.remove(tick);
+        }
+        this.executingTicks.clear();
+        return executed;
+    }
+
+    // same as LithiumServerTickScheduler
+    private static long getChunkKey(BlockPos pos) {
+        return ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4);
+    }
+
+    private static long getBucketKey(long time, TickPriority priority) {
+        return (time << 4L) | (priority.ordinal() & 15);
+    }
+}
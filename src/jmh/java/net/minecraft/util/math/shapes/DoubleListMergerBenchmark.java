@@ -0,0 +1,65 @@
+package net.minecraft.util.math.shapes;
+
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.doubles.DoubleList;
+import me.jellysquid.mods.lithium.common.shapes.pairs.LithiumDoublePairList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LithiumDoublePairList} against vanilla {@link IndirectMerger}, used when two voxel shapes are combined
+ *
+ * It's in the vanilla package to reach the package private vanilla implementation
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DoubleListMergerBenchmark
+{
+    @Param({"vanilla", "lithium"})
+    public String impl;
+
+    // point count of the merged lists, 2 for simple boxes, more for stairs and such
+    @Param({"2", "8"})
+    public int points;
+
+    private DoubleList listA;
+    private DoubleList listB;
+
+    @Setup
+    public void setup()
+    {
+        double[] a = new double[this.points];
+        double[] b = new double[this.points];
+        for (int i = 0; i < this.points; i++)
+        {
+            a[i] = i / (double)(this.points - 1);
+            b[i] = (i + 0.5D) / this.points;
+        }
+        this.listA = DoubleArrayList.wrap(a);
+        this.listB = DoubleArrayList.wrap(b);
+    }
+
+    @Benchmark
+    public DoubleList merge()
+    {
+        IDoubleListMerger merger = this.impl.equals("vanilla") ?
+                new IndirectMerger(this.listA, this.listB, false, false) :
+                new LithiumDoublePairList(this.listA, this.listB, false, false);
+        return merger.func_212435_a();
+    }
+}
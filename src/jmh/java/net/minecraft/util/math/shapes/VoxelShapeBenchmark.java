@@ -0,0 +1,66 @@
+package net.minecraft.util.math.shapes;
+
+import me.jellysquid.mods.lithium.common.shapes.VoxelShapeSimpleCube;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.AxisAlignedBB;
+import ocd.mcoptimizations.voxel.VoxelShapeAABB;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The box shapes of {@link VoxelShapeSimpleCube} and {@link VoxelShapeAABB} against vanilla {@link VoxelShapeArray}
+ *
+ * It's in the vanilla package to reach the package private vanilla implementations, since VoxelShapes is patched to
+ * create the optimized ones
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VoxelShapeBenchmark
+{
+    @Param({"vanilla", "lithium", "ocd"})
+    public String impl;
+
+    private VoxelShape slab;
+    // a falling entity right above the slab
+    private final AxisAlignedBB entityBox = new AxisAlignedBB(0.2D, 0.6D, 0.2D, 0.8D, 2.4D, 0.8D);
+
+    @Setup
+    public void setup()
+    {
+        VoxelShapePart part = new VoxelShapePartBitSet(1, 1, 1);
+        part.setFilled(0, 0, 0, true, true);
+        switch (this.impl)
+        {
+            case "lithium":
+                this.slab = new VoxelShapeSimpleCube(part, 0.0D, 0.0D, 0.0D, 1.0D, 0.5D, 1.0D);
+                break;
+            case "ocd":
+                this.slab = new VoxelShapeAABB(new AxisAlignedBB(0.0D, 0.0D, 0.0D, 1.0D, 0.5D, 1.0D));
+                break;
+            default:
+                this.slab = new VoxelShapeArray(part, new double[]{0.0D, 1.0D}, new double[]{0.0D, 0.5D}, new double[]{0.0D, 1.0D});
+        }
+    }
+
+    // Entity#move asks every nearby shape how far the entity can move along an axis
+    @Benchmark
+    public double collide()
+    {
+        return this.slab.func_212430_a(EnumFacing.Axis.Y, this.entityBox, -1.0D);
+    }
+}
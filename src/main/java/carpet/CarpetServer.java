@@ -3,7 +3,10 @@ package carpet;
 import carpet.commands.*;
 import carpet.commands.lifetime.LifeTimeCommand;
 import carpet.commands.lifetime.LifeTimeTracker;
+import carpet.helpers.ParallelDimensionTicker;
 import carpet.helpers.TickSpeed;
+import carpet.helpers.BlockEventCounter;
+import carpet.helpers.TileTickIslands;
 import carpet.logging.LoggerRegistry;
 import carpet.logging.microtiming.MicroTimingLoggerManager;
 import carpet.logging.microtiming.marker.MicroTimingMarkerManager;
@@ -12,12 +15,16 @@ import carpet.network.CarpetServerNetworkHandler;
 import carpet.script.CarpetScriptServer;
 import carpet.settings.CarpetSettings;
 import carpet.settings.SettingsManager;
+import carpet.utils.AsyncLightInit;
 import carpet.utils.HUDController;
+import carpet.utils.LightingEngine;
 import carpet.utils.deobfuscator.McpMapping;
 import com.mojang.brigadier.CommandDispatcher;
+import me.jellysquid.mods.lithium.LithiumConfig;
 import net.minecraft.command.CommandSource;
 import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.WorldServer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -64,12 +71,24 @@ public class CarpetServer // static for now - easier to handle all around the co
     {
         MicroTimingLoggerManager.detachServer();
         LifeTimeTracker.detachServer();
+        ParallelDimensionTicker.shutdown();
+        AsyncLightInit.shutdown();
+        LightingEngine.shutdown();
         disconnect();
     }
 
     public static void tick(MinecraftServer server)
     {
+        // TISCM runtime switchable tick scheduler, no tile tick is running at this point
+        for (WorldServer world : server.getWorlds())
+        {
+            world.setLithiumTickScheduler(LithiumConfig.WORLD_TICK_SCHEDULER);
+        }
+        // TISCM asyncNewLightInit, light sources found since the last tick
+        AsyncLightInit.commitFinished(Long.MAX_VALUE);
         TickSpeed.tick(server);
+        TileTickIslands.tick();
+        BlockEventCounter.tick();
         HUDController.update_hud(server);
         scriptServer.events.tick(); // in 1.14 make sure its called in the aftertick
         //in case something happens
@@ -1,5 +1,6 @@
 package carpet.commands;
 
+import carpet.helpers.EpsBenchmark;
 import carpet.settings.CarpetSettings;
 import carpet.settings.SettingsManager;
 import com.mojang.brigadier.CommandDispatcher;
@@ -8,55 +9,70 @@ import net.minecraft.command.CommandSource;
 import carpet.utils.Messenger;
 import net.minecraft.command.ISuggestionProvider;
 import net.minecraft.server.MinecraftServer;
-import net.minecraft.util.Util;
-import net.minecraft.world.WorldServer;
-import net.minecraft.world.dimension.DimensionType;
+
+import java.util.ArrayList;
+import java.util.List;
 
 import static com.mojang.brigadier.arguments.IntegerArgumentType.getInteger;
 import static com.mojang.brigadier.arguments.IntegerArgumentType.integer;
+import static com.mojang.brigadier.arguments.StringArgumentType.getString;
+import static com.mojang.brigadier.arguments.StringArgumentType.word;
 import static net.minecraft.command.Commands.argument;
 import static net.minecraft.command.Commands.literal;
 
 public class EpsCommand
 {
-    public final static long epsTestTimeSecondDefault = 30;
+    // measured seconds per scenario, after warm-up
+    public final static long epsTestTimeSecondDefault = 10;
     public static long epsTestTimeSecond = epsTestTimeSecondDefault;
+    public static String epsTestScenario = EpsBenchmark.ALL;
     public static void register(CommandDispatcher<CommandSource> dispatcher)
     {
         LiteralArgumentBuilder<CommandSource> command = literal("epsTest").
                 requires( (player) -> SettingsManager.canUseCommand(player, CarpetSettings.commandEPSTest)).
-                executes( (c) -> prepareTest(c.getSource(), epsTestTimeSecondDefault)).
+                executes( (c) -> prepareTest(c.getSource(), epsTestTimeSecondDefault, EpsBenchmark.ALL)).
                 then(argument("seconds", integer(1, 3600)).
                         suggests( (c, b) -> ISuggestionProvider.suggest(new String[]{"10", "120"}, b)).
-                        executes( (c) -> prepareTest(c.getSource(), getInteger(c, "seconds"))));
+                        executes( (c) -> prepareTest(c.getSource(), getInteger(c, "seconds"), EpsBenchmark.ALL)).
+                        then(argument("scenario", word()).
+                                suggests( (c, b) -> ISuggestionProvider.suggest(getScenarioSuggestions(), b)).
+                                executes( (c) -> prepareTest(c.getSource(), getInteger(c, "seconds"), getString(c, "scenario")))));
 
         dispatcher.register(command);
     }
 
-    private static int prepareTest(CommandSource source, long duration)
+    private static List<String> getScenarioSuggestions()
     {
-        Messenger.m(source,String.format("[TISCM]: EPS test is now active, duration: %ds", duration));
+        List<String> suggestions = new ArrayList<>(EpsBenchmark.getScenarioNames());
+        suggestions.add(EpsBenchmark.ALL);
+        return suggestions;
+    }
+
+    private static int prepareTest(CommandSource source, long duration, String scenario)
+    {
+        if (!scenario.equals(EpsBenchmark.ALL) && !EpsBenchmark.getScenarioNames().contains(scenario))
+        {
+            Messenger.m(source, "r Unknown EPS test scenario: " + scenario);
+            return 0;
+        }
+        Messenger.m(source,String.format("[TISCM]: EPS test is now active, scenario: %s, duration: %ds per scenario", scenario, duration));
         CarpetSettings.isEpsActive = true;
         epsTestTimeSecond = duration;
+        epsTestScenario = scenario;
         return 1;
     }
 
     public static void runTest(MinecraftServer server)
     {
-        WorldServer world = server.getWorld(DimensionType.OVERWORLD);
-
-        long endtime = Util.milliTime() + EpsCommand.epsTestTimeSecond * 1000;
-        long counter = 0;
-        server.logInfo(String.format("[TISCM]: starting EPS test for %d seconds... Please wait", EpsCommand.epsTestTimeSecond));
-
-        while (endtime > Util.milliTime())
+        server.logInfo(String.format("[TISCM]: starting EPS test for %d seconds per scenario... Please wait", EpsCommand.epsTestTimeSecond));
+        try
+        {
+            EpsBenchmark.run(server, epsTestScenario, (int)epsTestTimeSecond);
+        }
+        finally
         {
-            world.createExplosion(null, 0, -100, 0, 4, false);
-            counter++;
-            //trick that dog
-            server.dontPanic();
+            CarpetSettings.isEpsActive = false;
         }
-        Messenger.print_server_message(server, "[TISCM]: EPS test finished, result is:" + counter / EpsCommand.epsTestTimeSecond);
-        CarpetSettings.isEpsActive = false;
+        Messenger.print_server_message(server, "[TISCM]: EPS test finished");
     }
-}
\ No newline at end of file
+}
@@ -1,10 +1,22 @@
 package carpet.commands;
 
+import carpet.helpers.BlockEventCounter;
+import carpet.helpers.TileTickIslands;
 import carpet.settings.CarpetSettings;
 import carpet.settings.SettingsManager;
+import carpet.utils.Messenger;
+import carpet.utils.TickHealthMonitor;
+import carpet.utils.TickTimeline;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import net.minecraft.command.CommandSource;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.dimension.DimensionType;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 
 import static carpet.commands.TickCommand.healthEntities;
 import static carpet.commands.TickCommand.healthReport;
@@ -27,7 +39,80 @@ public class ProfileCommand
                 then(literal("entities").
                         executes((c) -> healthEntities(c.getSource(), 100)).
                         then(argument("ticks", integer(20, 24000)).
-                                executes((c) -> healthEntities(c.getSource(), getInteger(c, "ticks")))));
+                                executes((c) -> healthEntities(c.getSource(), getInteger(c, "ticks"))))).
+                then(literal("telemetry").
+                        executes((c) -> telemetry(c.getSource(), 10)).
+                        then(literal("1s").executes((c) -> telemetry(c.getSource(), 1))).
+                        then(literal("10s").executes((c) -> telemetry(c.getSource(), 10))).
+                        then(literal("60s").executes((c) -> telemetry(c.getSource(), 60)))).
+                then(literal("spike").
+                        executes((c) -> spikeReport(c.getSource())).
+                        then(literal("clear").executes((c) -> spikeClear(c.getSource())))).
+                then(literal("timeline").
+                        executes((c) -> timeline(c.getSource(), 10)).
+                        then(argument("seconds", integer(1, 60)).
+                                executes((c) -> timeline(c.getSource(), getInteger(c, "seconds"))))).
+                then(literal("islands").
+                        executes((c) -> islands(c.getSource(), 100)).
+                        then(argument("ticks", integer(20, 24000)).
+                                executes((c) -> islands(c.getSource(), getInteger(c, "ticks"))))).
+                then(literal("blockevents").
+                        executes((c) -> blockEvents(c.getSource(), 100)).
+                        then(argument("ticks", integer(20, 24000)).
+                                executes((c) -> blockEvents(c.getSource(), getInteger(c, "ticks")))));
         dispatcher.register(literalargumentbuilder);
     }
+
+    private static int telemetry(CommandSource source, int seconds)
+    {
+        Messenger.send(source, TickHealthMonitor.getInstance().reportWindow(seconds));
+        return 1;
+    }
+
+    private static int spikeReport(CommandSource source)
+    {
+        Messenger.send(source, TickHealthMonitor.getInstance().reportCapturedSpike());
+        return 1;
+    }
+
+    private static int timeline(CommandSource source, int seconds)
+    {
+        MinecraftServer server = source.getServer();
+        File folder = new File(server.getWorld(DimensionType.OVERWORLD).getSaveHandler().getWorldDirectory(), "timeline");
+        File file = new File(folder, new SimpleDateFormat("yyyy-MM-dd_HH.mm.ss").format(new Date()) + ".json");
+        try
+        {
+            int events = TickTimeline.dump(file, seconds);
+            Messenger.m(source, String.format("w Saved %d timeline events of the last %ds to %s", events, seconds, file.getPath()));
+            Messenger.m(source, "g Open it with https://ui.perfetto.dev or chrome://tracing");
+            return 1;
+        }
+        catch (IOException e)
+        {
+            CarpetSettings.LOG.error("Failed to save tick timeline", e);
+            Messenger.m(source, "r Failed to save tick timeline: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private static int islands(CommandSource source, int ticks)
+    {
+        TileTickIslands.start(source, ticks);
+        Messenger.m(source, String.format("w Recording tile tick islands for %d ticks", ticks));
+        return 1;
+    }
+
+    private static int blockEvents(CommandSource source, int ticks)
+    {
+        BlockEventCounter.start(source, ticks);
+        Messenger.m(source, String.format("w Recording block events for %d ticks", ticks));
+        return 1;
+    }
+
+    private static int spikeClear(CommandSource source)
+    {
+        TickHealthMonitor.getInstance().clearCapturedSpike();
+        Messenger.m(source, "gi Captured lag spike cleared");
+        return 1;
+    }
 }
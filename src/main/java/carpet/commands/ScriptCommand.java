@@ -3,6 +3,7 @@ package carpet.commands;
 import carpet.CarpetServer;
 import carpet.script.CarpetEventServer;
 import carpet.script.CarpetExpression;
+import carpet.script.CompiledScriptCache;
 import carpet.script.Expression;
 import carpet.script.ExpressionInspector;
 import carpet.script.ScriptHost;
@@ -253,9 +254,19 @@ public class ScriptCommand
                                         )?1:0))));
 
 
+        LiteralArgumentBuilder<CommandSource> k = literal("cache").
+                executes( (cc) -> listCacheStats(cc.getSource())).
+                then(literal("clear").requires( (player) -> player.hasPermissionLevel(2) ).
+                        executes( (cc) ->
+                        {
+                            CompiledScriptCache.clear();
+                            Messenger.m(cc.getSource(), "w Compiled script cache cleared");
+                            return 1;
+                        }));
+
         dispatcher.register(literal("script").
                 requires((player) -> SettingsManager.canUseCommand(player, CarpetSettings.commandScript)).
-                then(b).then(u).then(o).then(l).then(s).then(c).then(h).then(i).then(e).then(t).then(a).then(f).then(q));
+                then(b).then(u).then(o).then(l).then(s).then(c).then(h).then(i).then(e).then(t).then(a).then(f).then(q).then(k));
         dispatcher.register(literal("script").
                 requires((player) -> SettingsManager.canUseCommand(player, CarpetSettings.commandScript)).
                 then(literal("in").
@@ -300,6 +311,17 @@ public class ScriptCommand
         }
         return 1;
     }
+    private static int listCacheStats(CommandSource source)
+    {
+        long hits = CompiledScriptCache.getHits();
+        long lookups = hits + CompiledScriptCache.getMisses();
+        Messenger.m(source, String.format("w Compiled script cache: %d/%d scripts", CompiledScriptCache.size(), CompiledScriptCache.getCapacity()));
+        Messenger.m(source, String.format(Locale.US, "w  Hits: %d, misses: %d, hit rate: %.1f%%",
+                hits, CompiledScriptCache.getMisses(), lookups == 0 ? 0.0D : 100.0D * hits / lookups));
+        Messenger.m(source, String.format("w  Evictions: %d", CompiledScriptCache.getEvictions()));
+        return 1;
+    }
+
     private static int listGlobals(CommandContext<CommandSource> context)
     {
         ScriptHost host = getHost(context);
@@ -391,7 +413,7 @@ public class ScriptCommand
         CommandSource source = context.getSource();
         ScriptHost host = getHost(context);
         handleCall(source, () -> {
-            CarpetExpression ex = new CarpetExpression(expr, source, new BlockPos(0, 0, 0));
+            CarpetExpression ex = CarpetExpression.cached(expr, source, new BlockPos(0, 0, 0));
             return ex.scriptRunCommand(host, new BlockPos(source.getPos()));
         });
         return 1;
@@ -402,7 +424,7 @@ public class ScriptCommand
         CommandSource source = context.getSource();
         ScriptHost host = getHost(context);
         MutableBoundingBox area = new MutableBoundingBox(a, b);
-        CarpetExpression cexpr = new CarpetExpression(expr, source, origin);
+        CarpetExpression cexpr = CarpetExpression.cached(expr, source, origin);
         if (area.getXSize() * area.getYSize() * area.getZSize() > CarpetSettings.fillLimit)
         {
             Messenger.m(source, "r too many blocks to evaluate: " + area.getXSize() * area.getYSize() * area.getZSize());
@@ -445,7 +467,7 @@ public class ScriptCommand
         CommandSource source = context.getSource();
         ScriptHost host = getHost(context);
         MutableBoundingBox area = new MutableBoundingBox(a, b);
-        CarpetExpression cexpr = new CarpetExpression(expr, source, origin);
+        CarpetExpression cexpr = CarpetExpression.cached(expr, source, origin);
         if (area.getXSize() * area.getYSize() * area.getZSize() > CarpetSettings.fillLimit)
         {
             Messenger.m(source, "r too many blocks to evaluate: "+ area.getXSize() * area.getYSize() * area.getZSize());
@@ -0,0 +1,130 @@
+package carpet.helpers;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockChest;
+import net.minecraft.block.BlockEnderChest;
+import net.minecraft.block.BlockEventData;
+import net.minecraft.block.BlockShulkerBox;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.network.play.server.SPacketBlockAction;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.WorldServer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the block action packets of the fired block events of a world and sends them at the end of the block event
+ * phase, see rule batchBlockEventPackets
+ *
+ * Vanilla checks the distance of every player to every fired block event. Here the events are grouped by chunk, so a
+ * chunk out of range of a player is skipped with a single check. The packets of a player are sent chunk by chunk, in the
+ * order the chunks first fired an event, and in firing order within a chunk, so the packets of each position keep their
+ * vanilla order. A packet equal to the previous packet of the same position in the batch is dropped only if the client
+ * action just sets a state, like the amount of players using a chest. Other actions, like the sound of a note block,
+ * happen once per packet on the client, so they are always sent
+ */
+public class BlockEventBatcher
+{
+    private static class Action
+    {
+        private final BlockPos pos;
+        private final SPacketBlockAction packet;
+
+        private Action(BlockEventData event)
+        {
+            this.pos = event.getPosition();
+            this.packet = new SPacketBlockAction(event.getPosition(), event.getBlock(), event.getEventID(), event.getEventParameter());
+        }
+    }
+
+    private final WorldServer world;
+    private final Long2ObjectLinkedOpenHashMap<List<Action>> chunks = new Long2ObjectLinkedOpenHashMap<>();
+    private final Map<BlockPos, BlockEventData> lastEvents = new HashMap<>();
+
+    public BlockEventBatcher(WorldServer world)
+    {
+        this.world = world;
+    }
+
+    /**
+     * Whether the client ends up in the same state when it receives the action twice: the events setting the amount of
+     * players using a chest, an ender chest or a shulker box
+     */
+    private static boolean isIdempotent(BlockEventData event)
+    {
+        Block block = event.getBlock();
+        return event.getEventID() == 1 && (block instanceof BlockChest || block instanceof BlockEnderChest || block instanceof BlockShulkerBox);
+    }
+
+    /**
+     * Adds the packet of a fired block event
+     *
+     * @return false if the packet was dropped as a duplicate
+     */
+    public boolean add(BlockEventData event)
+    {
+        BlockPos pos = event.getPosition();
+        if (isIdempotent(event) && event.equals(this.lastEvents.put(pos, event)))
+        {
+            return false;
+        }
+        this.chunks.computeIfAbsent(ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4), key -> new ArrayList<>()).add(new Action(event));
+        return true;
+    }
+
+    /**
+     * Sends the collected packets to the players of the world within the range, with the distance check of
+     * PlayerList#sendToAllNearExcept
+     */
+    public void flush(double range)
+    {
+        if (this.chunks.isEmpty())
+        {
+            return;
+        }
+
+        double rangeSq = range * range;
+        for (EntityPlayer entityPlayer : this.world.playerEntities)
+        {
+            if (!(entityPlayer instanceof EntityPlayerMP))
+            {
+                continue;
+            }
+            EntityPlayerMP player = (EntityPlayerMP) entityPlayer;
+
+            for (Long2ObjectMap.Entry<List<Action>> entry : this.chunks.long2ObjectEntrySet())
+            {
+                // horizontal distance to the block positions of the chunk, a lower bound of the distance to each event
+                int minX = ChunkPos.getX(entry.getLongKey()) << 4;
+                int minZ = ChunkPos.getZ(entry.getLongKey()) << 4;
+                double dx = Math.max(0.0D, Math.max(minX - player.posX, player.posX - (minX + 15)));
+                double dz = Math.max(0.0D, Math.max(minZ - player.posZ, player.posZ - (minZ + 15)));
+                if (dx * dx + dz * dz >= rangeSq)
+                {
+                    continue;
+                }
+
+                for (Action action : entry.getValue())
+                {
+                    double x = (double) action.pos.getX() - player.posX;
+                    double y = (double) action.pos.getY() - player.posY;
+                    double z = (double) action.pos.getZ() - player.posZ;
+                    if (x * x + y * y + z * z < rangeSq)
+                    {
+                        player.connection.sendPacket(action.packet);
+                    }
+                }
+            }
+        }
+
+        this.chunks.clear();
+        this.lastEvents.clear();
+    }
+}
@@ -0,0 +1,128 @@
+package carpet.helpers;
+
+import carpet.utils.Messenger;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import net.minecraft.block.BlockEventData;
+import net.minecraft.command.CommandSource;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts the executed block events per chunk, see /profile blockevents
+ */
+public class BlockEventCounter
+{
+    private static final int TOP_CHUNKS = 10;
+
+    private static class WorldStats
+    {
+        private long executed;
+        private long fired;
+        private long packets;
+        private long droppedPackets;
+        private final Long2IntOpenHashMap chunks = new Long2IntOpenHashMap();
+    }
+
+    // fast path for the block event hooks
+    private static volatile boolean recording = false;
+    private static int ticksLeft;
+    private static int ticksTotal;
+    private static CommandSource requester;
+    // written by the thread ticking the world, which might be a dimension ticker thread
+    private static final Map<World, WorldStats> stats = new ConcurrentHashMap<>();
+
+    public static boolean isRecording()
+    {
+        return recording;
+    }
+
+    public static void start(CommandSource source, int ticks)
+    {
+        stats.clear();
+        requester = source;
+        ticksLeft = ticksTotal = ticks;
+        recording = true;
+    }
+
+    /**
+     * Called on the server thread at the start of every tick, reports after the requested amount of ticks
+     */
+    public static void tick()
+    {
+        if (recording && --ticksLeft < 0)
+        {
+            recording = false;
+            report();
+            stats.clear();
+            requester = null;
+        }
+    }
+
+    /**
+     * @param fired whether the event succeeded, so its block action packet is sent
+     * @param packetSent whether the packet was sent, false if it was dropped by rule batchBlockEventPackets
+     */
+    public static void onBlockEvent(World world, BlockEventData event, boolean fired, boolean packetSent)
+    {
+        WorldStats worldStats = stats.computeIfAbsent(world, w -> new WorldStats());
+        BlockPos pos = event.getPosition();
+        worldStats.chunks.addTo(ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4), 1);
+        worldStats.executed++;
+        if (fired)
+        {
+            worldStats.fired++;
+            if (packetSent)
+            {
+                worldStats.packets++;
+            }
+            else
+            {
+                worldStats.droppedPackets++;
+            }
+        }
+    }
+
+    private static void report()
+    {
+        if (requester == null)
+        {
+            return;
+        }
+
+        Messenger.m(requester, String.format("w Block events of the last %d ticks:", ticksTotal));
+        if (stats.isEmpty())
+        {
+            Messenger.m(requester, "g  No block events executed");
+            return;
+        }
+
+        double ticks = Math.max(ticksTotal, 1);
+        stats.forEach((world, worldStats) -> {
+            Messenger.m(requester, String.format(Locale.US, "w  %s: %.1f block events per tick in %d chunks, %.1f fired",
+                    world.dimension.getType().toString().replaceFirst("minecraft:", ""), worldStats.executed / ticks, worldStats.chunks.size(), worldStats.fired / ticks));
+            if (worldStats.droppedPackets > 0)
+            {
+                Messenger.m(requester, String.format(Locale.US, "g   Block action packets: %.1f per tick, %.1f duplicates dropped",
+                        worldStats.packets / ticks, worldStats.droppedPackets / ticks));
+            }
+
+            List<Long2IntMap.Entry> chunks = new ArrayList<>(worldStats.chunks.long2IntEntrySet());
+            chunks.sort((a, b) -> Integer.compare(b.getIntValue(), a.getIntValue()));
+            for (Long2IntMap.Entry entry : chunks.subList(0, Math.min(TOP_CHUNKS, chunks.size())))
+            {
+                int chunkX = ChunkPos.getX(entry.getLongKey());
+                int chunkZ = ChunkPos.getZ(entry.getLongKey());
+                Messenger.m(requester, String.format(Locale.US, "g   Chunk [%d, %d] at [%d, %d]: %.1f per tick",
+                        chunkX, chunkZ, chunkX << 4, chunkZ << 4, entry.getIntValue() / ticks));
+            }
+        });
+    }
+}
@@ -0,0 +1,430 @@
+package carpet.helpers;
+
+import carpet.settings.CarpetSettings;
+import carpet.utils.Messenger;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import me.jellysquid.mods.lithium.LithiumConfig;
+import net.minecraft.block.BlockSlab;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.item.EntityArmorStand;
+import net.minecraft.entity.item.EntityTNTPrimed;
+import net.minecraft.init.Blocks;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.Explosion;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.dimension.DimensionType;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Explosions per second benchmark behind /epsTest
+ *
+ * Every scenario is set up in an empty cube above the world spawn, then explosions of power 4 are calculated
+ * (without breaking blocks) back to back on the server thread in 1 second iterations, after a few warm-up iterations.
+ * Explosions are not thread safe, so the scenarios run one after another with the server loop blocked
+ * Results are sent to the chat and written as json into the eps folder of the world
+ */
+public class EpsBenchmark
+{
+    public static final String ALL = "all";
+    private static final int ARENA_RADIUS = 6;
+    private static final int ARENA_Y = 240;
+    private static final float POWER = 4.0F;
+    private static final int WARMUP_ITERATIONS = 2;
+    private static final long ITERATION_NANOS = 1000000000L;
+    private static final int ENTITY_FIELD_SIZE = 10;
+    private static final int TNT_STACK_SIZE = 64;
+
+    private static final Map<String, Supplier<Scenario>> SCENARIOS = new LinkedHashMap<>();
+
+    static
+    {
+        SCENARIOS.put("air", () -> new BlockScenario(Blocks.AIR.getDefaultState()));
+        SCENARIOS.put("stone", () -> new BlockScenario(Blocks.STONE.getDefaultState()));
+        SCENARIOS.put("waterlogged", () -> new BlockScenario(Blocks.OAK_SLAB.getDefaultState().with(BlockSlab.WATERLOGGED, true)));
+        SCENARIOS.put("entity_field", EntityFieldScenario::new);
+        SCENARIOS.put("tnt_chain", TntChainScenario::new);
+    }
+
+    public static Set<String> getScenarioNames()
+    {
+        return SCENARIOS.keySet();
+    }
+
+    private abstract static class Scenario
+    {
+        protected WorldServer world;
+        protected BlockPos center;
+        protected final List<Entity> entities = new ArrayList<>();
+
+        void setup(WorldServer world, BlockPos center)
+        {
+            this.world = world;
+            this.center = center;
+        }
+
+        abstract void explode();
+
+        void cleanup()
+        {
+            for (Entity entity : this.entities)
+            {
+                this.world.removeEntityDangerously(entity);
+            }
+            this.entities.clear();
+        }
+
+        protected <T extends Entity> T spawn(T entity)
+        {
+            this.world.spawnEntity(entity);
+            this.entities.add(entity);
+            return entity;
+        }
+
+        protected void explodeAt(Entity exploder, double x, double y, double z)
+        {
+            // the client packets and sounds of World#createExplosion are not what is being measured
+            new Explosion(this.world, exploder, x, y, z, POWER, false, false).doExplosionA();
+        }
+    }
+
+    private static class BlockScenario extends Scenario
+    {
+        private final IBlockState state;
+
+        private BlockScenario(IBlockState state)
+        {
+            this.state = state;
+        }
+
+        @Override
+        void setup(WorldServer world, BlockPos center)
+        {
+            super.setup(world, center);
+            fillArena(world, center, this.state);
+        }
+
+        @Override
+        void explode()
+        {
+            this.explodeAt(null, this.center.getX() + 0.5D, this.center.getY() + 0.5D, this.center.getZ() + 0.5D);
+        }
+
+        @Override
+        void cleanup()
+        {
+            super.cleanup();
+            fillArena(this.world, this.center, Blocks.AIR.getDefaultState());
+        }
+    }
+
+    private static class EntityFieldScenario extends BlockScenario
+    {
+        private EntityFieldScenario()
+        {
+            super(Blocks.AIR.getDefaultState());
+        }
+
+        @Override
+        void setup(WorldServer world, BlockPos center)
+        {
+            super.setup(world, center);
+            int offset = ENTITY_FIELD_SIZE / 2;
+            for (int x = 0; x < ENTITY_FIELD_SIZE; x++)
+            {
+                for (int z = 0; z < ENTITY_FIELD_SIZE; z++)
+                {
+                    EntityArmorStand stand = new EntityArmorStand(world, center.getX() + x - offset + 0.5D, center.getY() - 1, center.getZ() + z - offset + 0.5D);
+                    stand.setInvulnerable(true);
+                    stand.setNoGravity(true);
+                    this.spawn(stand);
+                }
+            }
+        }
+    }
+
+    // a stack of primed tnt in one spot, exploding one by one like in a tnt cannon
+    private static class TntChainScenario extends BlockScenario
+    {
+        private final List<EntityTNTPrimed> stack = new ArrayList<>();
+
+        private TntChainScenario()
+        {
+            super(Blocks.AIR.getDefaultState());
+        }
+
+        @Override
+        void explode()
+        {
+            if (this.stack.isEmpty())
+            {
+                for (int i = 0; i < TNT_STACK_SIZE; i++)
+                {
+                    this.stack.add(this.spawn(new EntityTNTPrimed(this.world, this.center.getX() + 0.5D, this.center.getY(), this.center.getZ() + 0.5D, null)));
+                }
+            }
+            EntityTNTPrimed tnt = this.stack.remove(this.stack.size() - 1);
+            this.entities.remove(tnt);
+            this.world.removeEntityDangerously(tnt);
+            this.explodeAt(tnt, tnt.posX, tnt.posY + tnt.height / 16.0F, tnt.posZ);
+        }
+
+        @Override
+        void cleanup()
+        {
+            this.stack.clear();
+            super.cleanup();
+        }
+    }
+
+    private static void fillArena(WorldServer world, BlockPos center, IBlockState state)
+    {
+        CarpetSettings.impendingFillSkipUpdates = true;
+        try
+        {
+            for (BlockPos pos : BlockPos.getAllInBoxMutable(center.add(-ARENA_RADIUS, -ARENA_RADIUS, -ARENA_RADIUS), center.add(ARENA_RADIUS, ARENA_RADIUS, ARENA_RADIUS)))
+            {
+                world.setBlockState(pos, state, 2);
+            }
+        }
+        finally
+        {
+            CarpetSettings.impendingFillSkipUpdates = false;
+        }
+    }
+
+    private static boolean isArenaEmpty(WorldServer world, BlockPos center)
+    {
+        for (BlockPos pos : BlockPos.getAllInBoxMutable(center.add(-ARENA_RADIUS, -ARENA_RADIUS, -ARENA_RADIUS), center.add(ARENA_RADIUS, ARENA_RADIUS, ARENA_RADIUS)))
+        {
+            if (!world.isAirBlock(pos))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class Result
+    {
+        private final String name;
+        private final double[] eps;
+        private final long explosions;
+        private final long nanos;
+        private final long allocatedBytes;
+
+        private Result(String name, double[] eps, long explosions, long nanos, long allocatedBytes)
+        {
+            this.name = name;
+            this.eps = eps;
+            this.explosions = explosions;
+            this.nanos = nanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        private double mean()
+        {
+            return Arrays.stream(this.eps).average().orElse(0.0D);
+        }
+
+        private double median()
+        {
+            double[] sorted = this.eps.clone();
+            Arrays.sort(sorted);
+            int n = sorted.length;
+            return n % 2 == 1 ? sorted[n / 2] : (sorted[n / 2 - 1] + sorted[n / 2]) / 2.0D;
+        }
+
+        private double stddev()
+        {
+            if (this.eps.length < 2)
+            {
+                return 0.0D;
+            }
+            double mean = this.mean();
+            double sum = 0.0D;
+            for (double value : this.eps)
+            {
+                sum += (value - mean) * (value - mean);
+            }
+            return Math.sqrt(sum / (this.eps.length - 1));
+        }
+
+        // MB/s, or -1 if the jvm can't measure thread allocations
+        private double allocationRate()
+        {
+            return this.allocatedBytes < 0 ? -1.0D : this.allocatedBytes / 1048576.0D / (this.nanos / 1.0E9D);
+        }
+
+        private JsonObject toJson()
+        {
+            JsonObject json = new JsonObject();
+            json.addProperty("scenario", this.name);
+            json.addProperty("mean", this.mean());
+            json.addProperty("median", this.median());
+            json.addProperty("stddev", this.stddev());
+            json.addProperty("explosions", this.explosions);
+            json.addProperty("allocation_mb_per_second", this.allocationRate());
+            json.addProperty("allocated_bytes_per_explosion", this.allocatedBytes < 0 ? -1L : this.allocatedBytes / Math.max(1L, this.explosions));
+            JsonArray iterations = new JsonArray();
+            for (double value : this.eps)
+            {
+                iterations.add(value);
+            }
+            json.add("iterations", iterations);
+            return json;
+        }
+    }
+
+    // bytes allocated by the current thread so far, or -1 if unsupported
+    private static long getAllocatedBytes()
+    {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean)
+        {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean)bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled())
+            {
+                return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1L;
+    }
+
+    // explosions done until the iteration time runs out, keeping the watchdog quiet
+    private static long runIteration(MinecraftServer server, Scenario scenario)
+    {
+        long end = System.nanoTime() + ITERATION_NANOS;
+        long count = 0;
+        while (System.nanoTime() < end)
+        {
+            scenario.explode();
+            count++;
+            //trick that dog
+            server.dontPanic();
+        }
+        return count;
+    }
+
+    private static Result runScenario(MinecraftServer server, String name, WorldServer world, BlockPos center, int iterations)
+    {
+        Scenario scenario = SCENARIOS.get(name).get();
+        scenario.setup(world, center);
+        try
+        {
+            for (int i = 0; i < WARMUP_ITERATIONS; i++)
+            {
+                runIteration(server, scenario);
+            }
+            double[] eps = new double[iterations];
+            long explosions = 0;
+            long allocatedStart = getAllocatedBytes();
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++)
+            {
+                long iterationStart = System.nanoTime();
+                long count = runIteration(server, scenario);
+                eps[i] = count / ((System.nanoTime() - iterationStart) / 1.0E9D);
+                explosions += count;
+            }
+            long nanos = System.nanoTime() - start;
+            long allocatedBytes = allocatedStart < 0 ? -1L : getAllocatedBytes() - allocatedStart;
+            return new Result(name, eps, explosions, nanos, allocatedBytes);
+        }
+        finally
+        {
+            scenario.cleanup();
+        }
+    }
+
+    /**
+     * Runs the given scenario, or all of them, for the given amount of 1 second iterations each
+     */
+    public static void run(MinecraftServer server, String scenarioName, int iterations)
+    {
+        WorldServer world = server.getWorld(DimensionType.OVERWORLD);
+        BlockPos spawn = world.getSpawnPoint();
+        BlockPos center = new BlockPos(spawn.getX(), ARENA_Y, spawn.getZ());
+        if (!isArenaEmpty(world, center))
+        {
+            Messenger.print_server_message(server, String.format("[TISCM]: EPS test cancelled, the area within %d blocks around %d %d %d is not empty", ARENA_RADIUS, center.getX(), center.getY(), center.getZ()));
+            return;
+        }
+
+        List<String> names = new ArrayList<>();
+        if (ALL.equals(scenarioName))
+        {
+            names.addAll(SCENARIOS.keySet());
+        }
+        else
+        {
+            names.add(scenarioName);
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (String name : names)
+        {
+            server.logInfo(String.format("[TISCM]: EPS test scenario %s...", name));
+            Result result = runScenario(server, name, world, center, iterations);
+            results.add(result);
+            Messenger.print_server_message(server, String.format(Locale.US, "[TISCM]: %s: %.0f eps (median %.0f, stddev %.0f), %.1f MB/s allocated",
+                    name, result.mean(), result.median(), result.stddev(), result.allocationRate()));
+        }
+        writeResults(server, world, results, iterations);
+    }
+
+    private static void writeResults(MinecraftServer server, WorldServer world, List<Result> results, int iterations)
+    {
+        JsonObject json = new JsonObject();
+        json.addProperty("version", CarpetSettings.carpetVersion);
+        json.addProperty("java", System.getProperty("java.version"));
+        json.addProperty("processors", Runtime.getRuntime().availableProcessors());
+        json.addProperty("warmup_iterations", WARMUP_ITERATIONS);
+        json.addProperty("iterations", iterations);
+        json.addProperty("power", POWER);
+        JsonObject options = new JsonObject();
+        options.addProperty("cacheExplosions", CarpetSettings.cacheExplosions);
+        options.addProperty("lithium_world_explosions", LithiumConfig.WORLD_EXPLOSIONS);
+        json.add("options", options);
+        JsonArray scenarios = new JsonArray();
+        results.forEach(result -> scenarios.add(result.toJson()));
+        json.add("scenarios", scenarios);
+
+        File folder = new File(world.getSaveHandler().getWorldDirectory(), "eps");
+        File file = new File(folder, new SimpleDateFormat("yyyy-MM-dd_HH.mm.ss").format(new Date()) + ".json");
+        try
+        {
+            Files.createDirectories(folder.toPath());
+            try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))
+            {
+                new GsonBuilder().setPrettyPrinting().create().toJson(json, writer);
+            }
+            Messenger.print_server_message(server, "[TISCM]: EPS test results saved to " + file.getPath());
+        }
+        catch (IOException e)
+        {
+            CarpetSettings.LOG.error("Failed to save EPS test results", e);
+            Messenger.print_server_message(server, "[TISCM]: Failed to save EPS test results: " + e.getMessage());
+        }
+    }
+}
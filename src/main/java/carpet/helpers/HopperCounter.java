@@ -34,6 +34,7 @@ public class HopperCounter
     }
 
     public final EnumDyeColor color;
+    // hoppers of every dimension count into the same counters, see rule parallelDimensionTicking
     private final Object2LongMap<Item> counter = new Object2LongLinkedOpenHashMap<>();
     private long startTick;
     private long startMillis;
@@ -45,7 +46,7 @@ public class HopperCounter
         // pubSubProvider = new PubSubInfoProvider<>(QuickCarpet.PUBSUB, "carpet.counter." + color.getName(), 0, this::getTotalItems);
     }
 
-    public void add(MinecraftServer server, ItemStack stack)
+    public synchronized void add(MinecraftServer server, ItemStack stack)
     {
         if (startTick == 0)
         {
@@ -57,7 +58,7 @@ public class HopperCounter
         // pubSubProvider.publish();
     }
 
-    public void reset(MinecraftServer server)
+    public synchronized void reset(MinecraftServer server)
     {
         counter.clear();
         startTick = server.getTickCounter();
@@ -93,7 +94,7 @@ public class HopperCounter
         return text;
     }
 
-    public List<ITextComponent> format(MinecraftServer server, boolean realTime, boolean brief)
+    public synchronized List<ITextComponent> format(MinecraftServer server, boolean realTime, boolean brief)
     {
         if (counter.isEmpty())
         {
@@ -149,7 +150,7 @@ public class HopperCounter
         }
     }
 
-    public long getTotalItems()
+    public synchronized long getTotalItems()
     {
         return counter.values().stream().mapToLong(Long::longValue).sum();
     }
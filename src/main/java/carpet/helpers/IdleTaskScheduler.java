@@ -0,0 +1,88 @@
+package carpet.helpers;
+
+import carpet.CarpetServer;
+import carpet.settings.CarpetSettings;
+import carpet.utils.AsyncLightInit;
+import carpet.utils.HUDController;
+import carpet.utils.portalsearcher.SuperCacheHandler;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.Util;
+import net.minecraft.world.WorldServer;
+
+/**
+ * Runs deferrable work in the spare time between the end of a tick and the start of the next one
+ *
+ * Tasks are run in order, each one until it has nothing left to do or the deadline is reached,
+ * so the more important ones get the idle time first
+ */
+public class IdleTaskScheduler
+{
+    // time kept free before the next tick, so a task overshooting the deadline a bit doesn't delay the tick
+    private static final long MARGIN = 1000000L;
+
+    public interface IdleTask
+    {
+        /**
+         * Does some work, checking the deadline in between if it can take long
+         *
+         * @param deadline in {@link Util#nanoTime()}
+         * @return true if there's still work left
+         */
+        boolean run(MinecraftServer server, long deadline);
+    }
+
+    private static final IdleTask[] TASKS = {
+            AsyncLightInit::commitIdle,
+            IdleTaskScheduler::drainLightUpdates,
+            (server, deadline) -> CarpetServer.scriptServer != null && CarpetServer.scriptServer.events.runIdleCalls(deadline),
+            HUDController::prerender_hud,
+            SuperCacheHandler::warmUp
+    };
+
+    /**
+     * Called on the server thread right after a tick
+     *
+     * @param nextTickTime when the next tick starts, in {@link Util#nanoTime()}
+     */
+    public static void runUntil(long nextTickTime)
+    {
+        MinecraftServer server = CarpetServer.minecraft_server;
+        long deadline = nextTickTime - MARGIN;
+        if (server == null || Util.nanoTime() >= deadline)
+        {
+            return;
+        }
+        for (IdleTask task : TASKS)
+        {
+            while (task.run(server, deadline))
+            {
+                if (Util.nanoTime() >= deadline)
+                {
+                    return;
+                }
+            }
+        }
+    }
+
+    // light updates scheduled after the lighting phase of the world tick, e.g. by block events
+    private static boolean drainLightUpdates(MinecraftServer server, long deadline)
+    {
+        if (!CarpetSettings.newLight)
+        {
+            return false;
+        }
+        for (WorldServer world : server.getWorlds())
+        {
+            if (Util.nanoTime() >= deadline)
+            {
+                return true;
+            }
+            // TISCM newLight update budget, deferred updates get the idle time too
+            if (world.getLightingEngine().procLightUpdatesUntil(deadline))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,87 @@
+package carpet.helpers;
+
+import carpet.CarpetServer;
+import net.minecraft.block.Block;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+
+/**
+ * Tells which blocks react to neighbor updates, see rule skipInertNeighborUpdates
+ *
+ * A block reacts if its class, or a superclass below {@link Block}, overrides Block#neighborChanged. The empty default
+ * implementation is what stone, glass and most other blocks use, so updating them can be skipped without changing the
+ * order in which the blocks that do react are updated. The result is cached in the block, since it's the same for every
+ * state of the block and reading a field is cheaper than looking up the state id
+ */
+public class NeighborUpdateListeners
+{
+    private static final byte UNKNOWN = 0;
+    private static final byte REACTS = 1;
+    private static final byte IGNORES = 2;
+
+    private static final Method NEIGHBOR_CHANGED = findNeighborChanged();
+
+    /**
+     * Block#neighborChanged is looked up by its parameters, since its name is obfuscated outside of the development environment
+     */
+    private static Method findNeighborChanged()
+    {
+        Class<?>[] parameters = {IBlockState.class, World.class, BlockPos.class, Block.class, BlockPos.class};
+        Method found = null;
+        for (Method method : Block.class.getDeclaredMethods())
+        {
+            if (!Modifier.isStatic(method.getModifiers()) && method.getReturnType() == void.class && Arrays.equals(method.getParameterTypes(), parameters))
+            {
+                if (found != null)
+                {
+                    found = null;
+                    break;
+                }
+                found = method;
+            }
+        }
+        if (found == null)
+        {
+            CarpetServer.LOGGER.warn("Block#neighborChanged not found, skipInertNeighborUpdates will not skip any update");
+        }
+        return found;
+    }
+
+    public static boolean reactsToNeighborChanges(IBlockState state)
+    {
+        Block block = state.getBlock();
+        byte listener = block.neighborUpdateListener;
+        if (listener == UNKNOWN)
+        {
+            listener = overridesNeighborChanged(block.getClass()) ? REACTS : IGNORES;
+            // racy between dimension threads, but every thread computes the same value
+            block.neighborUpdateListener = listener;
+        }
+        return listener == REACTS;
+    }
+
+    private static boolean overridesNeighborChanged(Class<?> clazz)
+    {
+        if (NEIGHBOR_CHANGED == null)
+        {
+            return true;
+        }
+        for (Class<?> c = clazz; c != Block.class && c != null; c = c.getSuperclass())
+        {
+            try
+            {
+                c.getDeclaredMethod(NEIGHBOR_CHANGED.getName(), NEIGHBOR_CHANGED.getParameterTypes());
+                return true;
+            }
+            catch (NoSuchMethodException ignored)
+            {
+            }
+        }
+        return false;
+    }
+}
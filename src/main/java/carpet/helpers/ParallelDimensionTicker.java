@@ -0,0 +1,226 @@
+package carpet.helpers;
+
+import carpet.settings.CarpetSettings;
+import carpet.utils.Messenger;
+import com.google.common.collect.Lists;
+import net.minecraft.crash.CrashReport;
+import net.minecraft.entity.Entity;
+import net.minecraft.network.play.server.SPacketTimeUpdate;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.ReportedException;
+import net.minecraft.util.Tuple;
+import net.minecraft.util.Util;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.dimension.DimensionType;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Ticks every dimension on its own worker thread, see rule {@link CarpetSettings#parallelDimensionTicking}
+ *
+ * Every world is ticked by exactly one worker from start to end, so the order of things inside a dimension is the same as vanilla.
+ * The server thread waits for all workers (the barrier) before the network and autosave phases
+ * Cross-dimension travelling of non-player entities are deferred to the server thread after the barrier, in dimension order
+ */
+public class ParallelDimensionTicker
+{
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+    // replaces the unsynchronized Entity#nextEntityID, so two dimensions never hand out the same entity id
+    private static final AtomicInteger nextEntityId = new AtomicInteger();
+    // every list is only appended by the thread ticking its world, and only drained by the server thread after the barrier
+    private static final Map<WorldServer, List<Tuple<Entity, DimensionType>>> deferredDimensionChanges = new ConcurrentHashMap<>();
+    private static final Queue<String> suppressionMessages = new ConcurrentLinkedQueue<>();
+    private static ExecutorService executor = null;
+
+    private static class DimensionTickerThread extends Thread
+    {
+        private DimensionTickerThread(Runnable runnable)
+        {
+            super(runnable, "Dimension Ticker #" + threadCounter.incrementAndGet());
+            this.setDaemon(true);
+        }
+    }
+
+    public static int nextEntityId()
+    {
+        return nextEntityId.getAndIncrement();
+    }
+
+    public static boolean isTickingInParallel()
+    {
+        return Thread.currentThread() instanceof DimensionTickerThread;
+    }
+
+    private static ExecutorService getExecutor(int worldAmount)
+    {
+        if (executor == null)
+        {
+            executor = Executors.newFixedThreadPool(worldAmount, DimensionTickerThread::new);
+        }
+        return executor;
+    }
+
+    public static void shutdown()
+    {
+        if (executor != null)
+        {
+            executor.shutdown();
+            executor = null;
+        }
+        deferredDimensionChanges.clear();
+        suppressionMessages.clear();
+    }
+
+    /**
+     * The parallel version of the world ticking loop in MinecraftServer#updateTimeLightAndEntities
+     *
+     * @param tickTimeRecorder called on the server thread after the barrier with the time in nanosecond each world used
+     */
+    public static void tickWorlds(MinecraftServer server, BooleanSupplier hasTimeLeft, ObjLongConsumer<WorldServer> tickTimeRecorder)
+    {
+        List<WorldServer> worlds = Lists.newArrayList(server.getWorlds());
+        List<Future<Long>> futures = Lists.newArrayList();
+        for (WorldServer worldserver : worlds)
+        {
+            if (worldserver.dimension.getType() == DimensionType.OVERWORLD || server.getAllowNether())
+            {
+                if (server.getTickCounter() % 20 == 0)
+                {
+                    server.getPlayerList().sendPacketToAllPlayersInDimension(new SPacketTimeUpdate(worldserver.getGameTime(), worldserver.getDayTime(), worldserver.getGameRules().getBoolean("doDaylightCycle")), worldserver.dimension.getType());
+                }
+                futures.add(getExecutor(worlds.size()).submit(() -> tickWorld(worldserver, hasTimeLeft)));
+            }
+            else
+            {
+                futures.add(null);
+            }
+        }
+
+        // the barrier. Results are collected in world order so everything below stays deterministic
+        ReportedException exception = null;
+        for (int i = 0; i < worlds.size(); i++)
+        {
+            Future<Long> future = futures.get(i);
+            long time = 0L;
+            if (future != null)
+            {
+                try
+                {
+                    time = future.get();
+                }
+                catch (ExecutionException e)
+                {
+                    if (exception == null)
+                    {
+                        exception = e.getCause() instanceof ReportedException ?
+                                (ReportedException)e.getCause() :
+                                new ReportedException(CrashReport.makeCrashReport(e.getCause(), "Exception ticking world in parallel"));
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            tickTimeRecorder.accept(worlds.get(i), time);
+        }
+
+        String message;
+        while ((message = suppressionMessages.poll()) != null)
+        {
+            Messenger.print_server_message(server, message);
+        }
+        if (exception != null)
+        {
+            throw exception;
+        }
+        for (WorldServer worldserver : worlds)
+        {
+            runDeferredDimensionChanges(worldserver);
+        }
+    }
+
+    private static long tickWorld(WorldServer worldserver, BooleanSupplier hasTimeLeft)
+    {
+        long startTime = Util.nanoTime();
+        try
+        {
+            worldserver.tick(hasTimeLeft);
+        }
+        catch (Throwable throwable1)
+        {
+            handleCrash(worldserver, throwable1, "Exception ticking world", "You just caused a server crash in world tick: ");
+        }
+
+        try
+        {
+            worldserver.tickEntities();
+        }
+        catch (Throwable throwable)
+        {
+            handleCrash(worldserver, throwable, "Exception ticking world entities", "You just caused a server crash in update entities: ");
+        }
+
+        worldserver.getEntityTracker().tick();
+        return Util.nanoTime() - startTime;
+    }
+
+    private static void handleCrash(WorldServer worldserver, Throwable throwable, String description, String suppressionMessage)
+    {
+        CrashReport crashreport = CrashReport.makeCrashReport(throwable, description);
+        worldserver.fillCrashReport(crashreport);
+        if (CarpetSettings.yeetUpdateSuppressionCrash && crashreport.getCrashCause() instanceof UpdateSuppressionException)
+        {
+            // messages are sent by the server thread after the barrier
+            suppressionMessages.add(suppressionMessage + crashreport.getCrashCause());
+        }
+        else
+        {
+            throw new ReportedException(crashreport);
+        }
+    }
+
+    /**
+     * Entity#changeDimension touches both the source and the target world, which might be ticking in another thread
+     * So when it's invoked inside a dimension ticker thread, the change is postponed to the end of the parallel world ticking
+     *
+     * @return true if the dimension change has been deferred and the caller should do nothing now
+     */
+    public static boolean deferDimensionChange(Entity entity, DimensionType destination)
+    {
+        if (isTickingInParallel())
+        {
+            deferredDimensionChanges.computeIfAbsent((WorldServer)entity.world, w -> Lists.newArrayList()).add(new Tuple<>(entity, destination));
+            return true;
+        }
+        return false;
+    }
+
+    private static void runDeferredDimensionChanges(WorldServer worldserver)
+    {
+        List<Tuple<Entity, DimensionType>> changes = deferredDimensionChanges.remove(worldserver);
+        if (changes == null)
+        {
+            return;
+        }
+        for (Tuple<Entity, DimensionType> change : changes)
+        {
+            Entity entity = change.getA();
+            if (!entity.removed)
+            {
+                entity.changeDimension(change.getB());
+            }
+        }
+    }
+}
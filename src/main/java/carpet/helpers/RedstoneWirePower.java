@@ -0,0 +1,78 @@
+package carpet.helpers;
+
+import carpet.settings.CarpetSettings;
+import net.minecraft.block.BlockRedstoneWire;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+/**
+ * The power a redstone wire receives from its neighbors, ignoring the power of other wires
+ *
+ * Vanilla turns off the canProvidePower flag of the redstone wire block while it reads World#getRedstonePowerFromNeighbors.
+ * The block is shared by all dimensions, so with rule parallelDimensionTicking a wire read by another dimension
+ * in the meantime would provide no power. There the same lookup is done here, skipping the wires instead
+ */
+public class RedstoneWirePower
+{
+    private static final EnumFacing[] FACINGS = EnumFacing.values();
+
+    public static int getPowerFromNeighbors(BlockRedstoneWire wire, World world, BlockPos pos)
+    {
+        if (!CarpetSettings.parallelDimensionTicking)
+        {
+            wire.setCanProvidePower(false);
+            int power = world.getRedstonePowerFromNeighbors(pos);
+            wire.setCanProvidePower(true);
+            return power;
+        }
+
+        // World#getRedstonePowerFromNeighbors
+        int power = 0;
+        for (EnumFacing facing : FACINGS)
+        {
+            int j = getRedstonePower(world, pos.offset(facing), facing);
+            if (j >= 15)
+            {
+                return 15;
+            }
+            if (j > power)
+            {
+                power = j;
+            }
+        }
+        return power;
+    }
+
+    // World#getRedstonePower
+    private static int getRedstonePower(World world, BlockPos pos, EnumFacing facing)
+    {
+        IBlockState state = world.getBlockState(pos);
+        if (state.isNormalCube())
+        {
+            return getStrongPower(world, pos);
+        }
+        return state.getBlock() instanceof BlockRedstoneWire ? 0 : state.getWeakPower(world, pos, facing);
+    }
+
+    // World#getStrongPower, checking down, up, north, south, west and east
+    private static int getStrongPower(World world, BlockPos pos)
+    {
+        int power = 0;
+        for (EnumFacing facing : FACINGS)
+        {
+            BlockPos neighbor = pos.offset(facing);
+            IBlockState state = world.getBlockState(neighbor);
+            if (!(state.getBlock() instanceof BlockRedstoneWire))
+            {
+                power = Math.max(power, state.getStrongPower(world, neighbor, facing));
+                if (power >= 15)
+                {
+                    return power;
+                }
+            }
+        }
+        return power;
+    }
+}
@@ -1,12 +1,12 @@
 package carpet.helpers;
 //Author: theosib
 
-import java.util.List;
-import java.util.ArrayList;
-import java.util.Map;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.concurrent.ThreadLocalRandom;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockRedstoneWire;
 import net.minecraft.block.state.IBlockState;
@@ -108,18 +108,19 @@ public class RedstoneWireTurbo
      * this direction is ambiguous is randomness applied (intentionally).
      */
     //private final List<List<UpdateNode>> updateLayers = new ArrayList<>();
-    private List<UpdateNode> updateQueue0 = new ArrayList<>();
-    private List<UpdateNode> updateQueue1 = new ArrayList<>();
-    private List<UpdateNode> updateQueue2 = new ArrayList<>();
+    // Node indexes, see the node storage below.  The queues are reused between updates.
+    private IntArrayList updateQueue0 = new IntArrayList();
+    private IntArrayList updateQueue1 = new IntArrayList();
+    private IntArrayList updateQueue2 = new IntArrayList();
      
      
     public RedstoneWireTurbo(BlockRedstoneWire wire) {
         this.wire = wire;
+        this.nodeCache.defaultReturnValue(NO_NODE);
     }
  
-     
     /* 
-     * Compute neighbors of a block.  When a redstone wire value changes, previously it called
+     * Offsets of the neighbors of a block.  When a redstone wire value changes, previously it called
      * World.notifyNeighborsOfStateChange.  That lists immediately neighboring blocks in
      * west, east, down, up, north, south order.  For each of those neighbors, their own
      * neighbors are updated in the same order.  This generates 36 updates, but 12 of them are
@@ -129,51 +130,19 @@ public class RedstoneWireTurbo
      * the direction of signal flow is identified, the ordering of updates is completely 
      * reorganized.
     */
-    public static BlockPos[] computeAllNeighbors(final BlockPos pos) {
-        final int x = pos.getX();
-        final int y = pos.getY();
-        final int z = pos.getZ();
-        final BlockPos[] n = new BlockPos[24];
- 
-        // Immediate neighbors, in the same order as 
-        // World.notifyNeighborsOfStateChange, etc.:
-        // west, east, down, up, north, south
-        n[ 0] = new BlockPos(x-1, y  , z  ); 
-        n[ 1] = new BlockPos(x+1, y  , z  ); 
-        n[ 2] = new BlockPos(x  , y-1, z  ); 
-        n[ 3] = new BlockPos(x  , y+1, z  ); 
-        n[ 4] = new BlockPos(x  , y  , z-1); 
-        n[ 5] = new BlockPos(x  , y  , z+1); 
-     
-        // Neighbors of neighbors, in the same order,
-        // except that duplicates are not included
-        n[ 6] = new BlockPos(x-2, y  , z  );  
-        n[ 7] = new BlockPos(x-1, y-1, z  );
-        n[ 8] = new BlockPos(x-1, y+1, z  );
-        n[ 9] = new BlockPos(x-1, y  , z-1);
-        n[10] = new BlockPos(x-1, y  , z+1);
-        n[11] = new BlockPos(x+2, y  , z  );
-        n[12] = new BlockPos(x+1, y-1, z  );
-        n[13] = new BlockPos(x+1, y+1, z  );
-        n[14] = new BlockPos(x+1, y  , z-1);
-        n[15] = new BlockPos(x+1, y  , z+1);
-        n[16] = new BlockPos(x  , y-2, z  );
-        n[17] = new BlockPos(x  , y-1, z-1);
-        n[18] = new BlockPos(x  , y-1, z+1);
-        n[19] = new BlockPos(x  , y+2, z  );
-        n[20] = new BlockPos(x  , y+1, z-1);
-        n[21] = new BlockPos(x  , y+1, z+1);
-        n[22] = new BlockPos(x  , y  , z-2);
-        n[23] = new BlockPos(x  , y  , z+2);
-        return n;
-    }
+    // Immediate neighbors, in the same order as World.notifyNeighborsOfStateChange, etc.:
+    // west, east, down, up, north, south.  Then neighbors of neighbors, in the same order,
+    // except that duplicates are not included.
+    private static final int[] neighbor_dx = {-1, 1, 0, 0, 0, 0, -2, -1, -1, -1, -1, 2, 1, 1, 1, 1, 0, 0, 0, 0, 0, 0, 0, 0};
+    private static final int[] neighbor_dy = {0, 0, -1, 1, 0, 0, 0, -1, 1, 0, 0, 0, -1, 1, 0, 0, -2, -1, -1, 2, 1, 1, 0, 0};
+    private static final int[] neighbor_dz = {0, 0, 0, 0, -1, 1, 0, 0, 0, -1, 1, 0, 0, 0, -1, 1, 0, -1, 1, 0, -1, 1, -2, 2};
  
     /*
      * We only want redstone wires to update redstone wires that are
      * immediately adjacent.  Some more distant updates can result
      * in cross-talk that (a) wastes time and (b) can make the update
      * order unintuitive.  Therefore (relative to the neighbor order
-     * computed by computeAllNeighbors), updates are not scheduled
+     * listed in neighbor_dx/dy/dz), updates are not scheduled
      * for redstone wire in those non-connecting positions.  On the
      * other hand, updates will always be sent to *other* types of blocks
      * in any of the 24 neighboring positions.
@@ -248,54 +217,153 @@ public class RedstoneWireTurbo
  
     // This allows the above remapping tables to be looked up by cardial direction index
     private static final int[][] reordering = {forward_is_north, forward_is_east, forward_is_south, forward_is_west};
-     
+ 
     /*
-     * Input:  Array of UpdateNode objects in an order corresponding to the positions 
-     *         computed by computeAllNeighbors above.
-     * Output: Array of UpdateNode objects oriented using the above remapping tables
-     *         corresponding to the identified heading (direction of information flow).
+     * Input:  Neighbor node indexes in an order corresponding to the offsets
+     *         listed in neighbor_dx/dy/dz above.
+     * Output: Neighbor node indexes oriented using the above remapping tables
+     *         corresponding to the identified heading (direction of information flow),
+     *         written at dst[offset] to dst[offset+23].
      */
-    private static void orientNeighbors(final UpdateNode[] src, final UpdateNode[] dst, final int heading) {
+    private static void orientNeighbors(final int[] src, final int[] dst, final int offset, final int heading) {
         final int[] re = reordering[heading];
         for (int i=0; i<24; i++) {
-            dst[i] = src[re[i]];
+            dst[offset + i] = src[re[i]];
         }
     }
  
     /*
-     * Structure to keep track of redstone wire blocks and
-     * neighbors that will receive updates.
+     * Storage to keep track of redstone wire blocks and neighbors that will receive updates.
+     *
+     * A big dust line reaches thousands of positions per update, so rather than an object per
+     * position the nodes are indexes into parallel arrays, which are kept and reused between
+     * updates.  Once the arrays have grown to fit the largest update, the search allocates nothing
+     * besides the BlockPos objects handed to the world, which may keep them.
+     */
+    private static final byte TYPE_UNKNOWN = 0;     // unknown,
+    private static final byte TYPE_REDSTONE = 1;    // redstone wire,
+    private static final byte TYPE_OTHER = 2;       // other type of block
+ 
+    // Value of a missing neighbor, such as a non-connecting redstone wire
+    private static final int NO_NODE = -1;
+ 
+    private int nodeCount = 0;
+    private int[] nodeX = new int[0];                   // Node's own position
+    private int[] nodeY = new int[0];
+    private int[] nodeZ = new int[0];
+    private BlockPos[] nodeBlockPos = new BlockPos[0];  // Node's own position for the world, created when needed
+    private IBlockState[] nodeState = new IBlockState[0]; // Keep track of redstone wire value
+    private int[] nodeNeighbors = new int[0];           // 24 indexes of neighbors per node (directed graph edges)
+    private boolean[] nodeExpanded = new boolean[0];    // Whether the neighbors of the node are known
+    private int[] nodeParent = new int[0];              // Which node spawned/updated this node
+    private byte[] nodeType = new byte[0];              // unknown, redstone wire, other type of block
+    private int[] nodeLayer = new int[0];               // Highest layer this node is scheduled in
+    private boolean[] nodeVisited = new boolean[0];     // To keep track of information flow direction, visited restone wire is marked
+    private int[] nodeXBias = new int[0];               // Remembers directionality of ancestor nodes; helps eliminate directional ambiguities.
+    private int[] nodeZBias = new int[0];
+ 
+    /*
+     * Keep track of all block positions discovered during search, from the packed position to the node.
+     * We want to remember one entry for each position.
+     */
+    private final Long2IntOpenHashMap nodeCache = new Long2IntOpenHashMap();
+ 
+    // For reading block states and power levels, never handed to code which might keep it
+    private final BlockPos.MutableBlockPos lookupPos = new BlockPos.MutableBlockPos();
+ 
+    // Same bit layout as BlockPos.toLong
+    private static long packPos(final int x, final int y, final int z) {
+        return ((long)x & 0x3FFFFFFL) << 38 | ((long)y & 0xFFFL) << 26 | ((long)z & 0x3FFFFFFL);
+    }
+ 
+    private void ensureNodeCapacity(final int capacity) {
+        if (capacity <= nodeX.length) return;
+ 
+        final int n = Math.max(capacity, Math.max(256, nodeX.length * 2));
+        nodeX = Arrays.copyOf(nodeX, n);
+        nodeY = Arrays.copyOf(nodeY, n);
+        nodeZ = Arrays.copyOf(nodeZ, n);
+        nodeBlockPos = Arrays.copyOf(nodeBlockPos, n);
+        nodeState = Arrays.copyOf(nodeState, n);
+        nodeNeighbors = Arrays.copyOf(nodeNeighbors, n * 24);
+        nodeExpanded = Arrays.copyOf(nodeExpanded, n);
+        nodeParent = Arrays.copyOf(nodeParent, n);
+        nodeType = Arrays.copyOf(nodeType, n);
+        nodeLayer = Arrays.copyOf(nodeLayer, n);
+        nodeVisited = Arrays.copyOf(nodeVisited, n);
+        nodeXBias = Arrays.copyOf(nodeXBias, n);
+        nodeZBias = Arrays.copyOf(nodeZBias, n);
+    }
+ 
+    /*
+     * Create a node for a position, the caller adds it to the node cache.
+     */
+    private int newNode(final int x, final int y, final int z) {
+        ensureNodeCapacity(nodeCount + 1);
+        final int node = nodeCount++;
+        nodeX[node] = x;
+        nodeY[node] = y;
+        nodeZ[node] = z;
+        nodeBlockPos[node] = null;
+        nodeState[node] = null;
+        nodeExpanded[node] = false;
+        nodeParent[node] = node;
+        nodeType[node] = TYPE_UNKNOWN;
+        nodeLayer[node] = 0;
+        nodeVisited[node] = false;
+        nodeXBias[node] = 0;
+        nodeZBias[node] = 0;
+        return node;
+    }
+ 
+    private int newNode(final BlockPos pos) {
+        final int node = newNode(pos.getX(), pos.getY(), pos.getZ());
+        nodeBlockPos[node] = pos.toImmutable();
+        return node;
+    }
+ 
+    private int getNode(final BlockPos pos) {
+        return nodeCache.get(packPos(pos.getX(), pos.getY(), pos.getZ()));
+    }
+ 
+    private void putNode(final int node) {
+        nodeCache.put(packPos(nodeX[node], nodeY[node], nodeZ[node]), node);
+    }
+ 
+    /*
+     * Position of a node for world methods which may keep it, such as neighborChanged, which schedules ticks.
      */
-    private static class UpdateNode {
-        public static enum Type {
-            UNKNOWN, REDSTONE, OTHER
+    private BlockPos getBlockPos(final int node) {
+        BlockPos pos = nodeBlockPos[node];
+        if (pos == null) {
+            pos = new BlockPos(nodeX[node], nodeY[node], nodeZ[node]);
+            nodeBlockPos[node] = pos;
         }
-         
-        IBlockState currentState;       // Keep track of redstone wire value
-        UpdateNode[] neighbor_nodes;    // References to neighbors (directed graph edges)
-        BlockPos self;                  // UpdateNode's own position
-        BlockPos parent;                // Which block pos spawned/updated this node
-        Type type = Type.UNKNOWN;       // unknown, redstone wire, other type of block
-        int layer;                      // Highest layer this node is scheduled in
-        boolean visited;                // To keep track of information flow direction, visited restone wire is marked
-        int xbias, zbias;               // Remembers directionality of ancestor nodes; helps eliminate directional ambiguities.
+        return pos;
     }
-     
-     
+ 
+    private BlockPos getLookupPos(final int node) {
+        return lookupPos.setPos(nodeX[node], nodeY[node], nodeZ[node]);
+    }
+ 
     /*
-     * Keep track of all block positions discovered during search and their current states.
-     * We want to remember one entry for each position.
+     * Forget all nodes of the finished search.  The arrays are kept for the next one.
      */
-    private final Map<BlockPos, UpdateNode> nodeCache = new HashMap<>();
+    private void clearNodes() {
+        Arrays.fill(nodeBlockPos, 0, nodeCount, null);
+        Arrays.fill(nodeState, 0, nodeCount, null);
+        nodeCount = 0;
+        // Unlike removing, clearing never shrinks the table, so it isn't reallocated by the next update
+        nodeCache.clear();
+    }
  
  
     /*
-     * For a newly created UpdateNode object, determine what type of block it is.
+     * For a newly created node, determine what type of block it is.
      */
-    private void identifyNode(final World worldIn, final UpdateNode upd1) {
-        final BlockPos pos = upd1.self;
-        final IBlockState oldState = worldIn.getBlockState(pos);
-        upd1.currentState = oldState;
+    private void identifyNode(final World worldIn, final int upd1) {
+        final IBlockState oldState = worldIn.getBlockState(getLookupPos(upd1));
+        nodeState[upd1] = oldState;
  
         // Some neighbors of redstone wire are other kinds of blocks.
         // These need to receive block updates to inform them that
@@ -304,7 +372,7 @@ public class RedstoneWireTurbo
         if (block != wire) {
             // Mark this block as not redstone wire and therefore
             // requiring updates
-            upd1.type = UpdateNode.Type.OTHER;
+            nodeType[upd1] = TYPE_OTHER;
              
             // Non-redstone blocks may propagate updates, but those updates
             // are not handled by this accelerator.  Therefore, we do not
@@ -319,13 +387,14 @@ public class RedstoneWireTurbo
         // others are processed internally by the breadth first search
         // algorithm.  To preserve this game behavior, this check must
         // be replicated here.
-        if (!oldState.isValidPosition(worldIn, pos)) {
+        if (!oldState.isValidPosition(worldIn, getLookupPos(upd1))) {
             // Pop off the redstone dust
+            final BlockPos pos = getBlockPos(upd1);
             oldState.dropBlockAsItem(worldIn, pos, 0);
             worldIn.removeBlock(pos);
              
             // Mark this position as not being redstone wire
-            upd1.type = UpdateNode.Type.OTHER;
+            nodeType[upd1] = TYPE_OTHER;
              
             // Note: Sending updates to air blocks leads to an empty method.
             // Testing shows this to be faster than explicitly avoiding updates to
@@ -334,7 +403,7 @@ public class RedstoneWireTurbo
         }
  
         // If the above conditions fail, then this is a redstone wire block.
-        upd1.type = UpdateNode.Type.REDSTONE;
+        nodeType[upd1] = TYPE_REDSTONE;
     }
  
  
@@ -415,28 +484,26 @@ public class RedstoneWireTurbo
     /*
      * Process a node whose neighboring redstone wire has experienced value changes.
      */
-    private void updateNode(final World worldIn, final UpdateNode upd1, final int layer) {
-        final BlockPos pos = upd1.self;
- 
+    private void updateNode(final World worldIn, final int upd1, final int layer) {
         // Mark this redstone wire as having been visited so that it can be used
         // to calculate direction of information flow.
-        upd1.visited = true;
+        nodeVisited[upd1] = true;
  
         // Look up the last known state.
         // Due to the way other redstone components are updated, we do not
         // have to worry about a state changing behind our backs.  The rare
         // exception is handled by scheduleReentrantNeighborChanged.
-        final IBlockState oldState = upd1.currentState;
+        final IBlockState oldState = nodeState[upd1];
      
         // Ask the wire block to compute its power level from its neighbors.
         // This will also update the wire's power level and return a new
         // state if it has changed.  When a wire power level is changed, 
         // calculateCurrentChanges will immediately update the block state in the world
         // and return the same value here to be cached in the corresponding
-        // UpdateNode object.  
+        // node.  
         IBlockState newState;
         if (old_current_change) {
-            newState = wire.func_212568_b(worldIn, pos, oldState);
+            newState = wire.func_212568_b(worldIn, getBlockPos(upd1), oldState);
         } else {
             // Looking up block state is slow.  This accelerator includes a version of
             // calculateCurrentChanges that uses cahed wire values for a
@@ -447,42 +514,53 @@ public class RedstoneWireTurbo
         // Only inform neighors if the state has changed
         if (newState != oldState) {
             // Store the new state
-            upd1.currentState = newState;
+            nodeState[upd1] = newState;
  
             // Inform neighbors of the change
             propagateChanges(worldIn, upd1, layer);
         }
     }
  
+    // Temporary arrays of neighbors in cardinal ordering, one per nested findNeighbors call,
+    // since identifying a neighbor can pop off dust and cause a reentrant update
+    private int[][] cardinalNeighbors = new int[0][];
+    private int findNeighborsDepth = 0;
+ 
     /*
-     * This identifies the neighboring positions of a new UpdateNode object,
+     * This identifies the neighboring positions of a new node,
      * determines their types, and links those to into the graph.  Then based on
      * what nodes in the redstone wire graph have been visited, the neighbors
      * are reordered left-to-right relative to the direction of information flow.
      */
-    private void findNeighbors(final World worldIn, final UpdateNode upd1) {
-        final BlockPos pos = upd1.self;
- 
-        // Get the list of neighbor coordinates
-        final BlockPos[] neighbors = computeAllNeighbors(pos);
+    private void findNeighbors(final World worldIn, final int upd1) {
+        final int x = nodeX[upd1];
+        final int y = nodeY[upd1];
+        final int z = nodeZ[upd1];
  
         // Temporary array of neighbors in cardinal ordering
-        final UpdateNode[] neighbor_nodes = new UpdateNode[24];
+        if (findNeighborsDepth == cardinalNeighbors.length) {
+            cardinalNeighbors = Arrays.copyOf(cardinalNeighbors, findNeighborsDepth + 1);
+            cardinalNeighbors[findNeighborsDepth] = new int[24];
+        }
+        final int[] neighbor_nodes = cardinalNeighbors[findNeighborsDepth++];
  
-        // Target array of neighbors sorted left-to-right
-        upd1.neighbor_nodes = new UpdateNode[24];
+        // Target slots of neighbors sorted left-to-right, empty until the neighbors are known
+        final int base = upd1 * 24;
+        nodeExpanded[upd1] = true;
+        Arrays.fill(nodeNeighbors, base, base + 24, NO_NODE);
  
         for (int i=0; i<24; i++) {
             // Look up each neighbor in the node cache
-            final BlockPos pos2 = neighbors[i];
-            UpdateNode upd2 = nodeCache.get(pos2);
-            if (upd2 == null) {
+            final int x2 = x + neighbor_dx[i];
+            final int y2 = y + neighbor_dy[i];
+            final int z2 = z + neighbor_dz[i];
+            int upd2 = nodeCache.get(packPos(x2, y2, z2));
+            if (upd2 == NO_NODE) {
                 // If this is a previously unreached position, create
                 // a new update node, add it to the cache, and identify what it is.
-                upd2 = new UpdateNode();
-                upd2.self = pos2;
-                upd2.parent = pos;
-                nodeCache.put(pos2, upd2);
+                upd2 = newNode(x2, y2, z2);
+                nodeParent[upd2] = upd1;
+                putNode(upd2);
                 identifyNode(worldIn, upd2);
             }
  
@@ -491,18 +569,21 @@ public class RedstoneWireTurbo
             // may contain a redstone wire that does not directly connect to the
             // one being expanded.  To avoid redundant calculations and confusing
             // cross-talk, those neighboring positions are not included.
-            if (update_redstone[i] || upd2.type != UpdateNode.Type.REDSTONE) {
+            if (update_redstone[i] || nodeType[upd2] != TYPE_REDSTONE) {
                 neighbor_nodes[i] = upd2;
+            } else {
+                neighbor_nodes[i] = NO_NODE;
             }
         }
+        findNeighborsDepth--;
  
         // Determine the directions from which the redstone signal may have come from.  This
         // checks for redstone wire at the same Y level and also Y+1 and Y-1, relative to the
         // block being expanded.
-        final boolean fromWest = (neighbor_nodes[0].visited || neighbor_nodes[7].visited || neighbor_nodes[8].visited);
-        final boolean fromEast = (neighbor_nodes[1].visited || neighbor_nodes[12].visited || neighbor_nodes[13].visited);
-        final boolean fromNorth = (neighbor_nodes[4].visited || neighbor_nodes[17].visited || neighbor_nodes[20].visited);
-        final boolean fromSouth = (neighbor_nodes[5].visited || neighbor_nodes[18].visited || neighbor_nodes[21].visited);
+        final boolean fromWest = (nodeVisited[neighbor_nodes[0]] || nodeVisited[neighbor_nodes[7]] || nodeVisited[neighbor_nodes[8]]);
+        final boolean fromEast = (nodeVisited[neighbor_nodes[1]] || nodeVisited[neighbor_nodes[12]] || nodeVisited[neighbor_nodes[13]]);
+        final boolean fromNorth = (nodeVisited[neighbor_nodes[4]] || nodeVisited[neighbor_nodes[17]] || nodeVisited[neighbor_nodes[20]]);
+        final boolean fromSouth = (nodeVisited[neighbor_nodes[5]] || nodeVisited[neighbor_nodes[18]] || nodeVisited[neighbor_nodes[21]]);
  
         int cx = 0, cz = 0;
         if (fromWest) cx += 1;
@@ -513,54 +594,51 @@ public class RedstoneWireTurbo
         int heading;
         if (cx==0 && cz==0) {
             // If there is no clear direction, try to inherit the heading from ancestor nodes.
-            heading = computeHeading(upd1.xbias, upd1.zbias);
+            heading = computeHeading(nodeXBias[upd1], nodeZBias[upd1]);
  
             // Propagate that heading to descendent nodes.
             for (int i=0; i<24; i++) {
-                final UpdateNode nn = neighbor_nodes[i];
-                if (nn != null) {
-                    nn.xbias = upd1.xbias;
-                    nn.zbias = upd1.zbias;
+                final int nn = neighbor_nodes[i];
+                if (nn != NO_NODE) {
+                    nodeXBias[nn] = nodeXBias[upd1];
+                    nodeZBias[nn] = nodeZBias[upd1];
                 }
             }
         } else {
             if (cx != 0 && cz != 0) {
                 // If the heading is somewhat ambiguous, try to disambiguate based on 
                 // ancestor nodes.
-                if (upd1.xbias != 0) cz = 0;
-                if (upd1.zbias != 0) cx = 0;
+                if (nodeXBias[upd1] != 0) cz = 0;
+                if (nodeZBias[upd1] != 0) cx = 0;
             }
             heading = computeHeading(cx, cz);
              
             // Propagate that heading to descendent nodes.
             for (int i=0; i<24; i++) {
-                final UpdateNode nn = neighbor_nodes[i];
-                if (nn != null) {
-                    nn.xbias = cx;
-                    nn.zbias = cz;
+                final int nn = neighbor_nodes[i];
+                if (nn != NO_NODE) {
+                    nodeXBias[nn] = cx;
+                    nodeZBias[nn] = cz;
                 }
             }
         }
  
-        // Reorder neighboring UpdateNode objects according to the forward direction
+        // Reorder neighboring nodes according to the forward direction
         // determined above.
-        orientNeighbors(neighbor_nodes, upd1.neighbor_nodes, heading);
+        orientNeighbors(neighbor_nodes, nodeNeighbors, base, heading);
     }
  
     /*
      * For any redstone wire block in layer N, inform neighbors to recompute their states
      * in layers N+1 and N+2;
      */
-    private void propagateChanges(final World worldIn, final UpdateNode upd1, final int layer) {
-        if (upd1.neighbor_nodes == null) {
+    private void propagateChanges(final World worldIn, final int upd1, final int layer) {
+        if (!nodeExpanded[upd1]) {
             // If this node has not been expanded yet, find its neigbors
             findNeighbors(worldIn, upd1);
         }
  
-        final BlockPos pos = upd1.self;
-        final int x = pos.getX();
-        final int y = pos.getY();
-        final int z = pos.getZ();
+        final int base = upd1 * 24;
  
         // Make sure there are enough layers in the list
         //while (updateLayers.size() <= layer+2) updateLayers.add(new ArrayList<UpdateNode>());
@@ -571,16 +649,16 @@ public class RedstoneWireTurbo
         // If the node being updated (upd1) has already been expanded, then merely
         // schedule updates to its neighbors.
         for (int i=0; i<24; i++) {
-            final UpdateNode upd2 = upd1.neighbor_nodes[i];
+            final int upd2 = nodeNeighbors[base + i];
  
-            // This test ensures that an UpdateNode is never scheduled to the same layer
+            // This test ensures that a node is never scheduled to the same layer
             // more than once.  Also, skip non-connecting redstone wire blocks
-            if (upd2 != null && layer1 > upd2.layer) {
-                upd2.layer = layer1;
+            if (upd2 != NO_NODE && layer1 > nodeLayer[upd2]) {
+                nodeLayer[upd2] = layer1;
                 updateQueue1.add(upd2);
  
                 // Keep track of which block updated this neighbor
-                upd2.parent = pos;
+                nodeParent[upd2] = upd1;
             }
         }
  
@@ -590,11 +668,11 @@ public class RedstoneWireTurbo
         // Repeat of the loop above, but only for the first four (above and below) neighbors
         // and for layer N+2;
         for (int i=0; i<4; i++) {
-            final UpdateNode upd2 = upd1.neighbor_nodes[i];
-            if (upd2 != null && layer2 > upd2.layer) {
-                upd2.layer = layer2;
+            final int upd2 = nodeNeighbors[base + i];
+            if (upd2 != NO_NODE && layer2 > nodeLayer[upd2]) {
+                nodeLayer[upd2] = layer2;
                 updateQueue2.add(upd2);
-                upd2.parent = pos;
+                nodeParent[upd2] = upd1;
             }
         }
     }
@@ -612,7 +690,7 @@ public class RedstoneWireTurbo
     private int currentWalkLayer = 0;
  
     private void shiftQueue() {
-        final List<UpdateNode> t = updateQueue0;
+        final IntArrayList t = updateQueue0;
         t.clear();
         updateQueue0 = updateQueue1;
         updateQueue1 = updateQueue2;
@@ -632,7 +710,7 @@ public class RedstoneWireTurbo
         // Loop over all layers
         while (updateQueue0.size()>0 || updateQueue1.size()>0) {
             // Get the set of blocks in this layer
-            final List<UpdateNode> thisLayer = updateQueue0;
+            final IntArrayList thisLayer = updateQueue0;
             //if (thisLayer.size() < 1) {
                 //shiftQueue();
                 //currentWalkLayer++;
@@ -642,8 +720,9 @@ public class RedstoneWireTurbo
             // Loop over all blocks in the layer.  Recall that
             // this is a List, preserving the insertion order of
             // left-to-right based on direction of information flow.
-            for (UpdateNode upd : thisLayer) {
-                if (upd.type == UpdateNode.Type.REDSTONE) {
+            for (int i=0; i<thisLayer.size(); i++) {
+                final int upd = thisLayer.getInt(i);
+                if (nodeType[upd] == TYPE_REDSTONE) {
                     // If the node is is redstone wire, 
                     // schedule updates to neighbors if its value
                     // has changed.  
@@ -661,7 +740,7 @@ public class RedstoneWireTurbo
                     // already keeping track of all of the neighbor positions
                     // that need to be updated.  All on its own, handling neighbors 
                     // this way reduces block updates by 1/3 (24 instead of 36).
-                    worldIn.neighborChanged(upd.self, wire, upd.parent);
+                    worldIn.neighborChanged(getBlockPos(upd), wire, getBlockPos(nodeParent[upd]));
                 }
             }
  
@@ -704,38 +783,34 @@ public class RedstoneWireTurbo
         if (source != null) {
             // If the cause of the redstone wire update is known, we can use that to help determine
             // direction of information flow.
-            UpdateNode src = nodeCache.get(source);
-            if (src == null) {
-                src = new UpdateNode();
-                src.self = source;
-                src.parent = source;
-                src.visited = true;
+            int src = getNode(source);
+            if (src == NO_NODE) {
+                src = newNode(source);
+                nodeVisited[src] = true;
                 identifyNode(worldIn, src);
-                nodeCache.put(source, src);
+                putNode(src);
             }
         }
  
         // Find or generate a node for the redstone block position receiving the update
-        UpdateNode upd = nodeCache.get(pos);
-        if (upd == null) {
-            upd = new UpdateNode();
-            upd.self = pos;
-            upd.parent = pos;
-            upd.visited = true;
+        int upd = getNode(pos);
+        if (upd == NO_NODE) {
+            upd = newNode(pos);
+            nodeVisited[upd] = true;
             identifyNode(worldIn, upd);
-            nodeCache.put(pos, upd);
+            putNode(upd);
         }
-        upd.currentState = newState;
+        nodeState[upd] = newState;
  
         // Receiving this block update may mean something in the world changed.
         // Therefore we clear the cached block info about all neighbors of
         // the position receiving the update and then re-identify what they are.
-        if (upd.neighbor_nodes != null) {
+        if (nodeExpanded[upd]) {
             for (int i=0; i<24; i++) {
-                final UpdateNode upd2 = upd.neighbor_nodes[i];
-                if (upd2 == null) continue;
-                upd2.type = UpdateNode.Type.UNKNOWN;
-                upd2.currentState = null;
+                final int upd2 = nodeNeighbors[upd * 24 + i];
+                if (upd2 == NO_NODE) continue;
+                nodeType[upd2] = TYPE_UNKNOWN;
+                nodeState[upd2] = null;
                 identifyNode(worldIn, upd2);
             }
         }
@@ -773,7 +848,7 @@ public class RedstoneWireTurbo
         }
  
         // Check to see if this update was received during an on-going breadth first search
-        if (currentWalkLayer>0 || nodeCache.size()>0) {
+        if (currentWalkLayer>0 || nodeCount>0) {
             // As breadthFirstWalk progresses, it sends block updates to neighbors.  Some of those
             // neighbors may affect the world so as to cause yet another redstone wire block to receive
             // an update.  If that happens, we need to integrate those redstone wire updates into the
@@ -784,25 +859,23 @@ public class RedstoneWireTurbo
  
         // If the source of the block update to the redstone wire at 'pos' is known, we can use
         // that to help determine the direction of information flow.
+        int src = NO_NODE;
         if (source != null) {
-            final UpdateNode src = new UpdateNode();
-            src.self = source;
-            src.parent = source;
-            src.visited = true;
-            nodeCache.put(source, src);
+            src = newNode(source);
+            nodeVisited[src] = true;
+            putNode(src);
             identifyNode(worldIn, src);
         }
  
         // Create a node representing the block at 'pos', and then propagate updates
         // to its neighbors.  As stated above, the call to wire.calculateCurrentChanges
         // already performs the update to the block at 'pos', so it is not added to the schedule.
-        final UpdateNode upd = new UpdateNode();
-        upd.self = pos;
-        upd.parent = source!=null ? source : pos;
-        upd.currentState = newState;
-        upd.type = UpdateNode.Type.REDSTONE;
-        upd.visited = true;
-        nodeCache.put(pos, upd);
+        final int upd = newNode(pos);
+        nodeParent[upd] = src != NO_NODE ? src : upd;
+        nodeState[upd] = newState;
+        nodeType[upd] = TYPE_REDSTONE;
+        nodeVisited[upd] = true;
+        putNode(upd);
         propagateChanges(worldIn, upd, 0);
      
         // Perform the walk over all directly reachable redstone wire blocks, propagating wire value 
@@ -813,13 +886,13 @@ public class RedstoneWireTurbo
         // We do not want to keep around state information that may be changed by other code.
         // In theory, we could cache the neighbor block positions, but that is a separate
         // optimization.
-        nodeCache.clear();
+        clearNodes();
  
         return newState;
     }
  
  
-    // For any array of neighbors in an UpdateNode object, these are always
+    // For any array of neighbors of a node, these are always
     // the indices of the four immediate neighbors at the same Y coordinate.
     private static final int[] rs_neighbors =    {4, 5, 6, 7};
     private static final int[] rs_neighbors_up = {9, 11, 13, 15};
@@ -827,25 +900,23 @@ public class RedstoneWireTurbo
  
     /*
      * Updated calculateCurrentChanges that is optimized for speed and uses
-     * the UpdateNode's neighbor array to find the redstone states of neighbors
+     * the node's neighbor array to find the redstone states of neighbors
      * that might power it.
      */
-    private IBlockState calculateCurrentChanges(final World worldIn, final UpdateNode upd)
+    private IBlockState calculateCurrentChanges(final World worldIn, final int upd)
     {
-        IBlockState state = upd.currentState;
+        IBlockState state = nodeState[upd];
         final int i = state.get(BlockRedstoneWire.POWER);
         int j = 0;
         j = this.getMaxCurrentStrength(upd, j);
         int l = 0;
  
-        wire.setCanProvidePower(false);
         // Unfortunately, World.isBlockIndirectlyGettingPowered is complicated,
         // and I'm not ready to try to replicate even more functionality from
         // elsewhere in Minecraft into this accelerator.  So sadly, we must
         // suffer the performance hit of this very expensive call.  If there
         // is consistency to what this call returns, we may be able to cache it.
-        final int k = worldIn.getRedstonePowerFromNeighbors(upd.self);
-        wire.setCanProvidePower(true);
+        final int k = RedstoneWirePower.getPowerFromNeighbors(wire, worldIn, getLookupPos(upd));
  
         // The variable 'k' holds the maximum redstone power value of any adjacent blocks.
         // If 'k' has the highest level of all neighbors, then the power level of this 
@@ -853,17 +924,19 @@ public class RedstoneWireTurbo
         // following loop can affect the power level of the wire.  Therefore, the loop is 
         // skipped if k is already 15. 
         if (k<15) {
-            if (upd.neighbor_nodes == null) {
+            if (!nodeExpanded[upd]) {
                 // If this node's neighbors are not known, expand the node
                 findNeighbors(worldIn, upd);
             }
  
+            final int base = upd * 24;
+ 
             // These remain constant, so pull them out of the loop.
-            // Regardless of which direction is forward, the UpdateNode for the
+            // Regardless of which direction is forward, the node for the
             // position directly above the node being calculated is always
             // at index 1.
-            UpdateNode center_up = upd.neighbor_nodes[1];
-            boolean center_up_is_cube = center_up.currentState.isNormalCube();
+            int center_up = nodeNeighbors[base + 1];
+            boolean center_up_is_cube = nodeState[center_up].isNormalCube();
  
             for (int m=0; m<4; m++) {
                 // Get the neighbor array index of each of the four cardinal
@@ -872,18 +945,18 @@ public class RedstoneWireTurbo
  
                 // Get the max redstone power level of each of the cardinal
                 // neighbors
-                UpdateNode neighbor = upd.neighbor_nodes[n];
+                int neighbor = nodeNeighbors[base + n];
                 l = this.getMaxCurrentStrength(neighbor, l);
  
                 // Also check the positions above and below the cardinal
                 // neighbors
-                boolean neighbor_is_cube = neighbor.currentState.isNormalCube();
+                boolean neighbor_is_cube = nodeState[neighbor].isNormalCube();
                 if (!neighbor_is_cube) {
-                    UpdateNode neighbor_down = upd.neighbor_nodes[rs_neighbors_dn[m]];
+                    int neighbor_down = nodeNeighbors[base + rs_neighbors_dn[m]];
                     l = this.getMaxCurrentStrength(neighbor_down, l);
                 } else
                 if (!center_up_is_cube) {
-                    UpdateNode neighbor_up = upd.neighbor_nodes[rs_neighbors_up[m]];
+                    int neighbor_up = nodeNeighbors[base + rs_neighbors_up[m]];
                     l = this.getMaxCurrentStrength(neighbor_up, l);
                 }
             }
@@ -904,7 +977,7 @@ public class RedstoneWireTurbo
             // Possible optimization:  Don't commit state changes to the world until they
             // need to be known by some nearby non-redstone-wire block.
             state = state.with(BlockRedstoneWire.POWER, j);
-            worldIn.setBlockState(upd.self, state, 2);
+            worldIn.setBlockState(getBlockPos(upd), state, 2);
         }
  
         return state;
@@ -914,9 +987,9 @@ public class RedstoneWireTurbo
      * Optimized function to compute a redstone wire's power level based on cached
      * state.
      */
-    private static int getMaxCurrentStrength(final UpdateNode upd, final int strength) {   
-        if (upd.type != UpdateNode.Type.REDSTONE) return strength;
-        final int i = upd.currentState.get(BlockRedstoneWire.POWER);
+    private int getMaxCurrentStrength(final int upd, final int strength) {   
+        if (nodeType[upd] != TYPE_REDSTONE) return strength;
+        final int i = nodeState[upd].get(BlockRedstoneWire.POWER);
         return i > strength ? i : strength;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,106 @@
+package carpet.helpers;
+
+import carpet.settings.CarpetSettings;
+import net.minecraft.util.Util;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Nanosecond based tick clock for the main server loop
+ *
+ * Waiting for the next tick parks the thread until it's close enough to the target time and then spins for the rest,
+ * so tick intervals don't jitter by the 1ms granularity of Thread.sleep, and fractional mspt like 16.67 can be hit precisely
+ *
+ * MinecraftServer#serverTime is still maintained in milliseconds for everything else, and it's derived from this clock.
+ * If someone resets serverTime (tick warp, watchdog etc.) the clock follows it
+ */
+public class TickPacer
+{
+    // parkNanos might oversleep for tens of microseconds, spin for the last bit
+    private static final long SPIN_THRESHOLD = 200000L;
+    private static final int JITTER_SAMPLES = 100;
+
+    private static long nextTickTime = 0L;
+    private static long lastTickStart = 0L;
+    private static final long[] jitterArray = new long[JITTER_SAMPLES];
+    private static int jitterCounter = 0;
+
+    public static long getMsptNanos()
+    {
+        return (long)(1000000.0D / TickSpeed.tickrate * 1000.0D);
+    }
+
+    // serverTime is the serverTime field of MinecraftServer in milliseconds
+    private static void syncWith(long serverTime)
+    {
+        if (nextTickTime / 1000000L != serverTime)
+        {
+            nextTickTime = serverTime * 1000000L;
+            lastTickStart = 0L;
+        }
+    }
+
+    /**
+     * Called right before a tick with the current serverTime
+     */
+    public static void onTickStart(long serverTime)
+    {
+        syncWith(serverTime);
+        long now = Util.nanoTime();
+        if (lastTickStart != 0L)
+        {
+            jitterArray[jitterCounter++ % JITTER_SAMPLES] = Math.abs(now - lastTickStart - getMsptNanos());
+        }
+        lastTickStart = now;
+    }
+
+    /**
+     * Moves the clock forward by the given amount of ticks
+     *
+     * @return the new serverTime in milliseconds
+     */
+    public static long advance(long serverTime, long ticks)
+    {
+        syncWith(serverTime);
+        nextTickTime += ticks * getMsptNanos();
+        return nextTickTime / 1000000L;
+    }
+
+    /**
+     * Waits until the next tick should start, running idle tasks first if enabled. Returns immediately if the server is behind
+     */
+    public static void waitForNextTick()
+    {
+        if (CarpetSettings.idleTimeTasks)
+        {
+            IdleTaskScheduler.runUntil(nextTickTime);
+        }
+        long remaining;
+        while ((remaining = nextTickTime - Util.nanoTime()) > SPIN_THRESHOLD)
+        {
+            LockSupport.parkNanos(remaining - SPIN_THRESHOLD);
+        }
+        while (Util.nanoTime() < nextTickTime)
+        {
+            Thread.yield();
+        }
+    }
+
+    /**
+     * @return the average deviation of the interval between recent tick starts from the target mspt, in milliseconds
+     */
+    public static double getJitter()
+    {
+        int samples = Math.min(jitterCounter, JITTER_SAMPLES);
+        if (samples == 0)
+        {
+            return 0.0D;
+        }
+        long sum = 0L;
+        for (int i = 0; i < samples; i++)
+        {
+            sum += jitterArray[i];
+        }
+        return sum / 1000000.0D / samples;
+    }
+}
@@ -3,6 +3,7 @@ package carpet.helpers;
 import carpet.CarpetServer;
 import carpet.logging.tickwarp.TickWarpHUDLogger;
 import carpet.network.CarpetServerNetworkHandler;
+import carpet.settings.CarpetSettings;
 import carpet.utils.Messenger;
 import net.minecraft.command.CommandSource;
 import net.minecraft.command.Commands;
@@ -25,6 +26,9 @@ public class TickSpeed
     public static boolean process_entities = true;
     public static boolean is_paused = false;
     public static boolean is_superHot = false;
+    // TISCM turbo tick warp, false in turbo warp ticks where clients don't need to be synced
+    public static boolean sync_clients = true;
+    private static long last_client_sync = 0;
 
     public static void reset_player_active_timeout()
     {
@@ -48,6 +52,8 @@ public class TickSpeed
         process_entities = true;
         is_paused = false;
         is_superHot = false;
+        sync_clients = true;
+        last_client_sync = 0;
     }
 
     public static void add_ticks_to_run_in_pause(int ticks)
@@ -59,14 +65,15 @@ public class TickSpeed
     public static void tickrate(float rate, boolean update)
     {
         tickrate = rate;
-        long mspt = (long)(1000.0f / tickrate);
-        if (mspt <= 0L)
+        // fractional mspt is fine, see TickPacer
+        float mspt = 1000.0f / tickrate;
+        if (mspt < 1.0f)
         {
-            mspt = 1L;
+            mspt = 1.0f;
             tickrate = 1000.0f;
         }
 
-        TickSpeed.mspt = (float)mspt;
+        TickSpeed.mspt = mspt;
 
         if (update)
         {
@@ -151,9 +158,15 @@ public class TickSpeed
             Messenger.print_server_message(CarpetServer.minecraft_server, String.format("... Time warp completed with %d tps, or %.2f mspt",tps, mspt ));
         }
         time_bias = 0;
+        sync_clients = true;
 
     }
 
+    public static boolean is_turbo_warping()
+    {
+        return time_warp_start_time != 0 && CarpetSettings.turboTickWarp > 0;
+    }
+
     public static boolean continueWarp()
     {
         if (time_bias > 0)
@@ -163,6 +176,19 @@ public class TickSpeed
                 time_warp_start_time = System.nanoTime();
             }
             time_bias -= 1;
+            if (is_turbo_warping())
+            {
+                long now = System.nanoTime();
+                sync_clients = now - last_client_sync >= CarpetSettings.turboTickWarp * 1000000L;
+                if (sync_clients)
+                {
+                    last_client_sync = now;
+                }
+            }
+            else
+            {
+                sync_clients = true;
+            }
             return true;
         }
         else
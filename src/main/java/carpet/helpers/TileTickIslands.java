@@ -0,0 +1,263 @@
+package carpet.helpers;
+
+import carpet.utils.Messenger;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.command.CommandSource;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.NextTickListEntry;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures how independent the tile ticks of the worlds are, see /profile islands
+ *
+ * The tile ticks selected in a game tick, by the block and the fluid scheduler together, are grouped into islands of
+ * chunks, linking chunks at most 2 chunks apart.
+ * If every tile tick only touched blocks in its own chunk and the adjacent ones, ticks of different islands could never
+ * interact and the islands could be ticked concurrently, so block changes and neighbor updates further away from the
+ * ticked chunk are counted as out-of-island accesses
+ */
+public class TileTickIslands
+{
+    // chunks at most this far apart are in the same island
+    private static final int LINK_DISTANCE = 2;
+    private static final int MAX_SAMPLES = 5;
+
+    private static class WorldStats
+    {
+        private int gameTicks;
+        private long tileTicks;
+        private long islands;
+        private long largestIslands;
+        private int maxIslands;
+        private long outOfIsland;
+        private final List<String> samples = new ArrayList<>();
+
+        // chunks of the tile ticks selected by both schedulers in the current game tick
+        private final LongArrayList selectedChunks = new LongArrayList();
+        private boolean ticked = false;
+
+        // the tile tick being executed, null outside of the tile tick phase
+        private NextTickListEntry<?> current = null;
+    }
+
+    // fast path for the access hooks
+    private static volatile boolean recording = false;
+    private static int ticksLeft;
+    private static int ticksTotal;
+    private static CommandSource requester;
+    // written by the thread ticking the world, which might be a dimension ticker thread
+    private static final Map<World, WorldStats> stats = new ConcurrentHashMap<>();
+
+    public static boolean isRecording()
+    {
+        return recording;
+    }
+
+    public static void start(CommandSource source, int ticks)
+    {
+        stats.clear();
+        requester = source;
+        ticksLeft = ticksTotal = ticks;
+        recording = true;
+    }
+
+    /**
+     * Called on the server thread at the start of every tick, when no world is ticking.
+     * Groups the tile ticks of the last game tick into islands and reports after the requested amount of ticks
+     */
+    public static void tick()
+    {
+        if (!recording)
+        {
+            return;
+        }
+
+        for (WorldStats worldStats : stats.values())
+        {
+            if (worldStats.ticked)
+            {
+                worldStats.gameTicks++;
+                addIslands(worldStats);
+                worldStats.selectedChunks.clear();
+                worldStats.ticked = false;
+            }
+        }
+
+        if (--ticksLeft < 0)
+        {
+            recording = false;
+            report();
+            stats.clear();
+            requester = null;
+        }
+    }
+
+    /**
+     * Collects the tile ticks selected for this game tick, called by both the block and the fluid scheduler of the world
+     */
+    public static void onTicksSelected(WorldServer world, List<? extends NextTickListEntry<?>> ticks)
+    {
+        WorldStats worldStats = stats.computeIfAbsent(world, w -> new WorldStats());
+        worldStats.ticked = true;
+
+        for (NextTickListEntry<?> tick : ticks)
+        {
+            worldStats.selectedChunks.add(ChunkPos.asLong(tick.position.getX() >> 4, tick.position.getZ() >> 4));
+        }
+    }
+
+    private static void addIslands(WorldStats worldStats)
+    {
+        LongArrayList chunks = worldStats.selectedChunks;
+        if (chunks.isEmpty())
+        {
+            return;
+        }
+
+        // union find over the distinct chunks of the ticks
+        Long2IntOpenHashMap chunkIndexes = new Long2IntOpenHashMap();
+        chunkIndexes.defaultReturnValue(-1);
+        int[] parent = new int[chunks.size()];
+        int[] tickChunks = new int[chunks.size()];
+        int chunkAmount = 0;
+
+        for (int i = 0; i < chunks.size(); i++)
+        {
+            long key = chunks.getLong(i);
+            int chunkX = ChunkPos.getX(key);
+            int chunkZ = ChunkPos.getZ(key);
+            int index = chunkIndexes.get(key);
+
+            if (index == -1)
+            {
+                index = chunkAmount++;
+                chunkIndexes.put(key, index);
+                parent[index] = index;
+
+                for (int dx = -LINK_DISTANCE; dx <= LINK_DISTANCE; dx++)
+                {
+                    for (int dz = -LINK_DISTANCE; dz <= LINK_DISTANCE; dz++)
+                    {
+                        int neighbor = chunkIndexes.get(ChunkPos.asLong(chunkX + dx, chunkZ + dz));
+                        if (neighbor != -1)
+                        {
+                            parent[find(parent, neighbor)] = find(parent, index);
+                        }
+                    }
+                }
+            }
+            tickChunks[i] = index;
+        }
+
+        int[] islandSizes = new int[chunkAmount];
+        int islandAmount = 0;
+        int largest = 0;
+
+        for (int i = 0; i < chunks.size(); i++)
+        {
+            int root = find(parent, tickChunks[i]);
+            if (islandSizes[root]++ == 0)
+            {
+                islandAmount++;
+            }
+            largest = Math.max(largest, islandSizes[root]);
+        }
+
+        worldStats.tileTicks += chunks.size();
+        worldStats.islands += islandAmount;
+        worldStats.largestIslands += largest;
+        worldStats.maxIslands = Math.max(worldStats.maxIslands, islandAmount);
+    }
+
+    private static int find(int[] parent, int index)
+    {
+        while (parent[index] != index)
+        {
+            parent[index] = parent[parent[index]];
+            index = parent[index];
+        }
+        return index;
+    }
+
+    public static void onTickStart(WorldServer world, NextTickListEntry<?> tick)
+    {
+        WorldStats worldStats = stats.get(world);
+        if (worldStats != null)
+        {
+            worldStats.current = tick;
+        }
+    }
+
+    public static void onTickEnd(WorldServer world)
+    {
+        WorldStats worldStats = stats.get(world);
+        if (worldStats != null)
+        {
+            worldStats.current = null;
+        }
+    }
+
+    /**
+     * Called for block changes and neighbor updates, counts the ones out of reach of the tile tick being executed
+     */
+    public static void onAccess(World world, BlockPos pos)
+    {
+        WorldStats worldStats = stats.get(world);
+        if (worldStats == null || worldStats.current == null)
+        {
+            return;
+        }
+
+        BlockPos tickPos = worldStats.current.position;
+        if (Math.abs((pos.getX() >> 4) - (tickPos.getX() >> 4)) > 1 || Math.abs((pos.getZ() >> 4) - (tickPos.getZ() >> 4)) > 1)
+        {
+            worldStats.outOfIsland++;
+            if (worldStats.samples.size() < MAX_SAMPLES)
+            {
+                worldStats.samples.add(String.format("%s at [%d, %d, %d] accessed [%d, %d, %d]",
+                        worldStats.current.getTarget(), tickPos.getX(), tickPos.getY(), tickPos.getZ(), pos.getX(), pos.getY(), pos.getZ()));
+            }
+        }
+    }
+
+    private static void report()
+    {
+        if (requester == null)
+        {
+            return;
+        }
+
+        Messenger.m(requester, String.format("w Tile tick islands of the last %d ticks:", ticksTotal));
+        if (stats.isEmpty())
+        {
+            Messenger.m(requester, "g  No tile ticks recorded, rule lithiumTickScheduler is needed");
+            return;
+        }
+
+        stats.forEach((world, worldStats) -> {
+            if (worldStats.tileTicks == 0)
+            {
+                return;
+            }
+            double gameTicks = Math.max(worldStats.gameTicks, 1);
+            Messenger.m(requester, String.format(Locale.US, "w  %s: %.1f tile ticks in %.1f islands per tick, at most %d islands",
+                    world.dimension.getType().toString().replaceFirst("minecraft:", ""), worldStats.tileTicks / gameTicks, worldStats.islands / gameTicks, worldStats.maxIslands));
+            Messenger.m(requester, String.format(Locale.US, "g   Largest island: %.1f%% of the tile ticks, up to %.1fx faster in parallel",
+                    100.0D * worldStats.largestIslands / worldStats.tileTicks, (double) worldStats.tileTicks / worldStats.largestIslands));
+            Messenger.m(requester, String.format("%s   Out-of-island accesses: %d", worldStats.outOfIsland > 0 ? "r" : "g", worldStats.outOfIsland));
+            for (String sample : worldStats.samples)
+            {
+                Messenger.m(requester, "g    " + sample);
+            }
+        });
+    }
+}
@@ -10,6 +10,7 @@ import carpet.logging.microtiming.marker.MicroTimingMarkerManager;
 import carpet.logging.microtiming.tickstages.TickStageExtraBase;
 import carpet.logging.microtiming.utils.MicroTimingUtil;
 import carpet.settings.CarpetSettings;
+import carpet.utils.TickTimeline;
 import carpet.utils.Translator;
 import it.unimi.dsi.fastutil.objects.Reference2ObjectArrayMap;
 import net.minecraft.block.Block;
@@ -206,10 +207,12 @@ public class MicroTimingLoggerManager
 
     public static void setTickStage(World world, TickStage stage)
     {
+        TickTimeline.onTickStage(world, stage);
         getWorldLogger(world).ifPresent(logger -> logger.setTickStage(stage));
     }
     public static void setTickStage(TickStage stage)
     {
+        TickTimeline.onTickStage(null, stage);
         if (instance != null)
         {
             for (MicroTimingLogger logger : instance.loggers.values())
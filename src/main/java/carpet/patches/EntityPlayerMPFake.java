@@ -1,5 +1,6 @@
 package carpet.patches;
 
+ import carpet.helpers.ParallelDimensionTicker;
  import net.minecraft.entity.Entity;
  import net.minecraft.network.play.server.SPacketEntityHeadLook;
  import net.minecraft.network.play.server.SPacketEntityTeleport;
@@ -123,6 +124,11 @@ public class EntityPlayerMPFake extends EntityPlayerMP
     @Override
     public Entity changeDimension(DimensionType p_212321_1_)
     {
+        // fake players are ticked within the world tick, which might be in a dimension ticker thread
+        if (ParallelDimensionTicker.deferDimensionChange(this, p_212321_1_))
+        {
+            return null;
+        }
         Entity res = super.changeDimension(p_212321_1_);
         this.getServer().addScheduledTask( () -> clearInvulnerableDimensionChange());
         return res;
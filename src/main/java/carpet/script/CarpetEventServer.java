@@ -6,6 +6,7 @@ import carpet.script.value.EntityValue;
 import carpet.script.value.ListValue;
 import carpet.script.value.NumericValue;
 import carpet.script.value.StringValue;
+import carpet.settings.CarpetSettings;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.command.CommandSource;
 import net.minecraft.entity.Entity;
@@ -15,6 +16,7 @@ import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.EnumHand;
+import net.minecraft.util.Util;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.util.registry.IRegistry;
@@ -59,14 +61,16 @@ public class CarpetEventServer
         public CommandSource context_source;
         public BlockPos context_origin;
         public long dueTime;
+        public boolean lowPriority;
 
-        public ScheduledCall(CarpetContext context, String udf, List<LazyValue> args, long dueTime)
+        public ScheduledCall(CarpetContext context, String udf, List<LazyValue> args, long dueTime, boolean lowPriority)
         {
             super(context.host.getName(), udf);
             this.args = args;
             this.context_source = context.s;
             this.context_origin = context.origin;
             this.dueTime = dueTime;
+            this.lowPriority = lowPriority;
         }
 
         public void execute()
@@ -126,18 +130,25 @@ public class CarpetEventServer
     public Map<String, CallbackList> eventHandlers = new HashMap<>();
 
     public List<ScheduledCall> scheduledCalls = new LinkedList<>();
+    // due low priority calls waiting for idle time between ticks
+    public List<ScheduledCall> idleCalls = new LinkedList<>();
 
     public void tick()
     {
+        // low priority calls which didn't get any idle time since the last tick are run now
+        List<ScheduledCall> currentCalls = new ArrayList<>(idleCalls);
+        idleCalls.clear();
         Iterator<ScheduledCall> eventIterator = scheduledCalls.iterator();
-        List<ScheduledCall> currentCalls = new ArrayList<>();
         while(eventIterator.hasNext())
         {
             ScheduledCall call = eventIterator.next();
             call.dueTime--;
             if (call.dueTime <= 0)
             {
-                currentCalls.add(call);
+                if (call.lowPriority && CarpetSettings.idleTimeTasks)
+                    idleCalls.add(call);
+                else
+                    currentCalls.add(call);
                 eventIterator.remove();
             }
         }
@@ -147,9 +158,24 @@ public class CarpetEventServer
         }
 
     }
-    public void scheduleCall(CarpetContext context, String function, List<LazyValue> args, long due)
+
+    /**
+     * Idle task, runs due low priority calls one by one until the deadline
+     */
+    public boolean runIdleCalls(long deadline)
+    {
+        while (!idleCalls.isEmpty())
+        {
+            if (Util.nanoTime() >= deadline)
+                return true;
+            idleCalls.remove(0).execute();
+        }
+        return false;
+    }
+
+    public void scheduleCall(CarpetContext context, String function, List<LazyValue> args, long due, boolean lowPriority)
     {
-        scheduledCalls.add(new ScheduledCall(context, function, args, due));
+        scheduledCalls.add(new ScheduledCall(context, function, args, due, lowPriority));
     }
 
 
@@ -2066,6 +2066,10 @@ public class CarpetExpression
      * <h3><code>schedule(delay, function, args...)</code></h3>
      * <p>Schedules a user defined function to run with a specified <code>delay</code> ticks of delay.
      * Scheduled functions run at the end of the tick, and they will run in order they were scheduled.</p>
+     * <h3><code>schedule_idle(delay, function, args...)</code></h3>
+     * <p>Same as <code>schedule</code>, but the call is low priority. With <code>idleTimeTasks</code> rule enabled,
+     * it runs in the spare time between ticks once it's due, or together with the scheduled calls of the next tick
+     * at the latest if the server doesn't have any spare time.</p>
      * <h3><code>plop(pos, what)</code></h3>
      * <p>Plops a structure or a feature at a given <code>pos</code>, so block, triple position coordinates
      * or a list of coordinates. To <code>what</code> gets plopped and exactly where it often depends on the
@@ -2444,26 +2448,8 @@ public class CarpetExpression
             return (c_, t_) -> new NumericValue(res);
         });
 
-        this.expr.addLazyFunction("schedule", -1, (c, t, lv) -> {
-            if (lv.size()<2)
-                throw new InternalExpressionException("schedule should have at least 2 arguments, delay and call name");
-            Long delay = NumericValue.asNumber(lv.get(0).evalValue(c)).getLong();
-            String funname = lv.get(1).evalValue(c).getString();
-            CarpetContext cc = (CarpetContext)c;
-            if (!cc.host.globalFunctions.containsKey(funname))
-                throw new InternalExpressionException("function "+funname+" is not defined");
-            List<LazyValue> args = new ArrayList<>();
-            for (int i=2; i < lv.size(); i++)
-            {
-                Value arg = lv.get(i).evalValue(cc);
-                args.add( (_c, _t) -> arg);
-            }
-            if (cc.host.globalFunctions.get(funname).getArguments().size() != args.size())
-                throw new InternalExpressionException("function "+funname+" takes "+
-                        cc.host.globalFunctions.get(funname).getArguments().size()+" arguments, "+args.size()+" provided.");
-            CarpetServer.scriptServer.events.scheduleCall(cc, funname, args, delay);
-            return (c_, t_) -> Value.TRUE;
-        });
+        this.expr.addLazyFunction("schedule", -1, (c, t, lv) -> schedule((CarpetContext)c, lv, "schedule", false));
+        this.expr.addLazyFunction("schedule_idle", -1, (c, t, lv) -> schedule((CarpetContext)c, lv, "schedule_idle", true));
     }
 
     /**
@@ -2476,7 +2462,31 @@ public class CarpetExpression
     {
         this.origin = origin;
         this.source = source;
-        this.expr = new Expression(expression);
+        this.expr = new Expression(expression, BUILTINS);
+    }
+
+    private CarpetExpression(Expression expr, CommandSource source, BlockPos origin)
+    {
+        this.origin = origin;
+        this.source = source;
+        this.expr = expr;
+    }
+
+    /**
+     * Same as the constructor, but reuses the compiled code of a previous expression with the same source,
+     * see {@link CompiledScriptCache}
+     */
+    public static CarpetExpression cached(String expression, CommandSource source, BlockPos origin)
+    {
+        return new CarpetExpression(CompiledScriptCache.get(expression, code -> new Expression(code, BUILTINS)), source, origin);
+    }
+
+    /** built-in and world functions, registered once and shared by all carpet expressions */
+    private static final Expression BUILTINS = new CarpetExpression().expr.freeze();
+
+    private CarpetExpression()
+    {
+        this.expr = Expression.builtinRegistry();
 
         API_BlockManipulation();
         API_EntityManipulation();
@@ -2485,6 +2495,27 @@ public class CarpetExpression
         API_AuxiliaryAspects();
     }
 
+    private LazyValue schedule(CarpetContext cc, List<LazyValue> lv, String name, boolean lowPriority)
+    {
+        if (lv.size()<2)
+            throw new InternalExpressionException(name+" should have at least 2 arguments, delay and call name");
+        Long delay = NumericValue.asNumber(lv.get(0).evalValue(cc)).getLong();
+        String funname = lv.get(1).evalValue(cc).getString();
+        if (!cc.host.globalFunctions.containsKey(funname))
+            throw new InternalExpressionException("function "+funname+" is not defined");
+        List<LazyValue> args = new ArrayList<>();
+        for (int i=2; i < lv.size(); i++)
+        {
+            Value arg = lv.get(i).evalValue(cc);
+            args.add( (_c, _t) -> arg);
+        }
+        if (cc.host.globalFunctions.get(funname).getArguments().size() != args.size())
+            throw new InternalExpressionException("function "+funname+" takes "+
+                    cc.host.globalFunctions.get(funname).getArguments().size()+" arguments, "+args.size()+" provided.");
+        CarpetServer.scriptServer.events.scheduleCall(cc, funname, args, delay, lowPriority);
+        return (c_, t_) -> Value.TRUE;
+    }
+
     /**
      * <h1><code>/script scan</code>, <code>/script fill</code> and <code>/script outline</code> commands</h1>
      * <div style="padding-left: 20px; border-radius: 5px 45px; border:1px solid grey;">
@@ -0,0 +1,90 @@
+package carpet.script;
+
+import carpet.script.exception.ExpressionException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * LRU cache of the compiled expressions of /script run, scan, fill and outline, keyed by the normalized source text.
+ * Command blocks running the same script reuse its AST instead of tokenizing and parsing it again. The AST doesn't
+ * depend on the host or the command source, both come with the context it is evaluated in
+ */
+public class CompiledScriptCache
+{
+    private static final int CAPACITY = 256;
+
+    private static long hits = 0;
+    private static long misses = 0;
+    private static long evictions = 0;
+
+    private static final Map<String, Expression> cache = new LinkedHashMap<String, Expression>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Expression> eldest)
+        {
+            if (size() > CAPACITY)
+            {
+                evictions++;
+                return true;
+            }
+            return false;
+        }
+    };
+
+    static synchronized Expression get(String source, Function<String, Expression> compiler)
+    {
+        String key = Expression.normalize(source);
+        Expression expr = cache.get(key);
+        if (expr != null)
+        {
+            hits++;
+            return expr;
+        }
+        misses++;
+        expr = compiler.apply(key);
+        try
+        {
+            // compiled under the lock, so the threads getting it from the cache see the complete AST
+            expr.compile();
+        }
+        catch (ExpressionException e)
+        {
+            // not cached, evaluating it reports the error to the caller
+            return expr;
+        }
+        cache.put(key, expr);
+        return expr;
+    }
+
+    public static synchronized void clear()
+    {
+        cache.clear();
+    }
+
+    public static synchronized int size()
+    {
+        return cache.size();
+    }
+
+    public static int getCapacity()
+    {
+        return CAPACITY;
+    }
+
+    public static synchronized long getHits()
+    {
+        return hits;
+    }
+
+    public static synchronized long getMisses()
+    {
+        return misses;
+    }
+
+    public static synchronized long getEvictions()
+    {
+        return evictions;
+    }
+}
@@ -1,6 +1,7 @@
 package carpet.script;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
@@ -17,7 +18,12 @@ public class Context
     static final int SIGNATURE = 7;
     static final int LOCALIZATION = 8;
 
-    private Map<String, LazyValue> variables = new HashMap<>();
+    // locals of the code running in this context, by the slots of its table
+    private VariableSlots slotTable = VariableSlots.EMPTY;
+    private LazyValue[] slots = NO_SLOTS;
+    private static final LazyValue[] NO_SLOTS = new LazyValue[0];
+    // locals without a slot, like the ones set by name by built-in functions, created on first use
+    private Map<String, LazyValue> variables = null;
 
     protected ScriptHost host;
 
@@ -26,61 +32,174 @@ public class Context
         this.host = host;
     }
 
+    /**
+     * Switches the locals of this context to the slot table of the code about to run in it,
+     * a no-op if it already uses that table
+     */
+    void useSlots(VariableSlots table)
+    {
+        if (table == slotTable)
+        {
+            return;
+        }
+        for (int i = 0; i < slots.length; i++)
+        {
+            if (slots[i] != null)
+            {
+                namedVariables().put(slotTable.getName(i), slots[i]);
+            }
+        }
+        slotTable = table;
+        slots = table.size() == 0 ? NO_SLOTS : new LazyValue[table.size()];
+        if (variables != null && !variables.isEmpty())
+        {
+            for (int i = 0; i < slots.length; i++)
+            {
+                slots[i] = variables.remove(table.getName(i));
+            }
+        }
+    }
+
+    private Map<String, LazyValue> namedVariables()
+    {
+        if (variables == null)
+        {
+            variables = new HashMap<>();
+        }
+        return variables;
+    }
+
+    private LazyValue getLocal(String name)
+    {
+        int slot = slotTable.slotOf(name);
+        if (slot >= 0)
+        {
+            return slots[slot];
+        }
+        return variables == null ? null : variables.get(name);
+    }
+
+    private void setLocal(String name, LazyValue lv)
+    {
+        int slot = slotTable.slotOf(name);
+        if (slot >= 0)
+        {
+            slots[slot] = lv;
+            return;
+        }
+        namedVariables().put(name, lv);
+    }
+
+    private void removeLocal(String name)
+    {
+        int slot = slotTable.slotOf(name);
+        if (slot >= 0)
+        {
+            slots[slot] = null;
+            return;
+        }
+        if (variables != null)
+        {
+            variables.remove(name);
+        }
+    }
 
     LazyValue getVariable(String name)
     {
-        if (variables.containsKey(name))
+        LazyValue lv = getLocal(name);
+        if (lv != null)
         {
-            return variables.get(name);
+            return lv;
         }
         return host.globalVariables.get(name);
     }
 
+    /**
+     * Fast path for compiled variable nodes, the slot is only valid if this context uses the table of the node
+     */
+    LazyValue getVariable(VariableSlots table, int slot, String name)
+    {
+        if (slot >= 0 && table == slotTable)
+        {
+            LazyValue lv = slots[slot];
+            if (lv != null)
+            {
+                return lv;
+            }
+            return host.globalVariables.get(name);
+        }
+        return getVariable(name);
+    }
+
     void setVariable(String name, LazyValue lv)
     {
-        if (name.startsWith("global_"))
+        if (VariableSlots.isGlobal(name))
         {
             host.globalVariables.put(name, lv);
             return;
         }
-        variables.put(name, lv);
+        setLocal(name, lv);
     }
 
+    /**
+     * Fast path for function arguments, the slot is only valid if this context uses the given table
+     */
+    void setVariable(VariableSlots table, int slot, String name, LazyValue lv)
+    {
+        if (slot >= 0 && table == slotTable)
+        {
+            slots[slot] = lv;
+            return;
+        }
+        setVariable(name, lv);
+    }
 
     boolean isAVariable(String name)
     {
-        return variables.containsKey(name) || host.globalVariables.containsKey(name);
+        return getLocal(name) != null || host.globalVariables.containsKey(name);
     }
 
 
     void delVariable(String variable)
     {
-        if (variable.startsWith("global_"))
+        if (VariableSlots.isGlobal(variable))
         {
             host.globalVariables.remove(variable);
             return;
         }
-        variables.remove(variable);
+        removeLocal(variable);
     }
     void clearAll(String variable)
     {
-        if (variable.startsWith("global_"))
+        if (VariableSlots.isGlobal(variable))
         {
             host.globalVariables.remove(variable);
             return;
         }
-        variables.remove(variable);
+        removeLocal(variable);
     }
 
     public Context with(String variable, LazyValue lv)
     {
-        variables.put(variable, lv);
+        setLocal(variable, lv);
         return this;
     }
 
     public Set<String> getAllVariableNames()
     {
-        return variables.keySet();
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < slots.length; i++)
+        {
+            if (slots[i] != null)
+            {
+                names.add(slotTable.getName(i));
+            }
+        }
+        if (variables != null)
+        {
+            names.addAll(variables.keySet());
+        }
+        return names;
     }
 
     public Context recreate()
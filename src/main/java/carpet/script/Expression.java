@@ -20,11 +20,13 @@ import carpet.script.value.NumericValue;
 import carpet.script.value.StringValue;
 import carpet.script.value.Value;
 
+import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.IllegalFormatException;
 import java.util.Iterator;
 import java.util.List;
@@ -34,6 +36,8 @@ import java.util.Random;
 import java.util.Set;
 import java.util.Stack;
 import java.util.function.BiFunction;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.regex.Matcher;
@@ -354,11 +358,15 @@ public class Expression implements Cloneable
     /** Cached AST (Abstract Syntax Tree) (root) of the expression */
     private LazyValue ast = null;
 
-    /** script specific operatos and built-in functions */
-    private Map<String, ILazyOperator> operators = new HashMap<>();
+    /** slots of the top level locals, and of the locals of each function body defined with -> */
+    private VariableSlots variableSlots = VariableSlots.EMPTY;
+    private Map<LazyValue, VariableSlots> functionSlots = new IdentityHashMap<>();
+
+    /** script specific operatos and built-in functions, shared with the registry the expression was created from */
+    private Map<String, ILazyOperator> operators;
     boolean isAnOperator(String opname) { return operators.containsKey(opname) || operators.containsKey(opname+"u");}
 
-    private Map<String, ILazyFunction> functions = new HashMap<>();
+    private Map<String, ILazyFunction> functions;
     Set<String> getFunctionNames() {return functions.keySet();}
 
     //static final Map<String, UserDefinedFunction> globalFunctions = new HashMap<>();
@@ -630,15 +638,15 @@ public class Expression implements Cloneable
         });
     }
 
-    private void addMathematicalUnaryFunction(String name, Function<Double, Double> fun)
+    private void addMathematicalUnaryFunction(String name, DoubleUnaryOperator fun)
     {
-        addUnaryFunction(name, (v) -> new NumericValue(fun.apply(NumericValue.asNumber(v).getDouble())));
+        addUnaryFunction(name, (v) -> NumericValue.of(fun.applyAsDouble(NumericValue.asNumber(v).getDouble())));
     }
 
-    private void addMathematicalBinaryFunction(String name, BiFunction<Double, Double, Double> fun)
+    private void addMathematicalBinaryFunction(String name, DoubleBinaryOperator fun)
     {
         addBinaryFunction(name, (w, v) ->
-                new NumericValue(fun.apply(NumericValue.asNumber(w).getDouble(), NumericValue.asNumber(v).getDouble())));
+                NumericValue.of(fun.applyAsDouble(NumericValue.asNumber(w).getDouble(), NumericValue.asNumber(v).getDouble())));
     }
 
 
@@ -680,6 +688,8 @@ public class Expression implements Cloneable
         {
             throw new ExpressionException(expr, token, "Problems in allocating global function "+name);
         }
+        VariableSlots slots = expr.functionSlots.getOrDefault(code, VariableSlots.EMPTY);
+        int[] argumentSlots = arguments.stream().mapToInt(slots::slotOf).toArray();
 
         context.host.globalFunctions.put(name, new UserDefinedFunction(arguments, function_context, token)
         {
@@ -694,6 +704,7 @@ public class Expression implements Cloneable
                     );
                 }
                 Context newFrame = c.recreate();
+                newFrame.useSlots(slots);
 
                 for (String global : globals)
                 {
@@ -712,7 +723,7 @@ public class Expression implements Cloneable
                 {
                     String arg = arguments.get(i);
                     Value val = lazyParams.get(i).evalValue(c).reboundedTo(arg);
-                    newFrame.setVariable(arg, (cc, tt) -> val);
+                    newFrame.setVariable(slots, argumentSlots[i], arg, (cc, tt) -> val);
                 }
                 Value retVal;
                 boolean rethrow = false;
@@ -1216,9 +1227,9 @@ public class Expression implements Cloneable
         addBinaryOperator("*", precedence.get("multiplication*/%"), true, Value::multiply);
         addBinaryOperator("/", precedence.get("multiplication*/%"), true, Value::divide);
         addBinaryOperator("%", precedence.get("multiplication*/%"), true, (v1, v2) ->
-                new NumericValue(NumericValue.asNumber(v1).getDouble() % NumericValue.asNumber(v2).getDouble()));
+                NumericValue.of(NumericValue.asNumber(v1).getDouble() % NumericValue.asNumber(v2).getDouble()));
         addBinaryOperator("^", precedence.get("exponent^"), false, (v1, v2) ->
-                new NumericValue(Math.pow(NumericValue.asNumber(v1).getDouble(), NumericValue.asNumber(v2).getDouble())));
+                NumericValue.of(Math.pow(NumericValue.asNumber(v1).getDouble(), NumericValue.asNumber(v2).getDouble())));
 
         addLazyBinaryOperator("&&", precedence.get("and&&"), false, (c, t, lv1, lv2) ->
         {
@@ -1357,9 +1368,9 @@ public class Expression implements Cloneable
             return (cc, tt) -> lval;
         });
 
-        addUnaryOperator("-",  false, (v) -> new NumericValue(-NumericValue.asNumber(v).getDouble()));
+        addUnaryOperator("-",  false, (v) -> NumericValue.of(-NumericValue.asNumber(v).getDouble()));
 
-        addUnaryOperator("+", false, (v) -> new NumericValue(NumericValue.asNumber(v).getDouble()));
+        addUnaryOperator("+", false, (v) -> NumericValue.of(NumericValue.asNumber(v).getDouble()));
 
         addLazyUnaryOperator("!", precedence.get("unary+-!"), false, (c, t, lv)-> lv.evalValue(c, Context.BOOLEAN).getBoolean() ? (cc, tt)-> Value.FALSE : (cc, tt) -> Value.TRUE); // might need context boolean
 
@@ -1982,19 +1993,19 @@ public class Expression implements Cloneable
             List<Value> result = new ArrayList<>();
             for (int i=0; iterator.hasNext(); i++)
             {
-                Value next = iterator.next();
-                String var = next.boundVariable;
-                next.bindTo("_");
+                Value element = iterator.next();
+                String var = element.boundVariable;
+                Value next = element.bindTo("_");
                 int doYouReally = i;
                 c.setVariable("_", (cc, tt) -> next);
                 c.setVariable("_i", (cc, tt) -> new NumericValue(doYouReally).bindTo("_i"));
                 result.add(expr.evalValue(c));
                 if (cond != null && cond.evalValue(c).getBoolean())
                 {
-                    next.boundVariable = var;
+                    element.boundVariable = var;
                     break;
                 }
-                next.boundVariable = var;
+                element.boundVariable = var;
             }
             ((ListValue) rval).fatality();
             LazyValue ret = (cc, tt) -> ListValue.wrap(result);
@@ -2027,20 +2038,20 @@ public class Expression implements Cloneable
             List<Value> result = new ArrayList<>();
             for (int i=0; iterator.hasNext(); i++)
             {
-                Value next = iterator.next();
-                String var = next.boundVariable;
-                next.bindTo("_");
+                Value element = iterator.next();
+                String var = element.boundVariable;
+                Value next = element.bindTo("_");
                 int seriously = i;
                 c.setVariable("_", (cc, tt) -> next);
                 c.setVariable("_i", (cc, tt) -> new NumericValue(seriously).bindTo("_i"));
                 if(expr.evalValue(c).getBoolean())
-                    result.add(next);
+                    result.add(element);
                 if (cond != null && cond.evalValue(c).getBoolean())
                 {
-                    next.boundVariable = var;
+                    element.boundVariable = var;
                     break;
                 }
-                next.boundVariable = var;
+                element.boundVariable = var;
             }
             ((ListValue) rval).fatality();
             LazyValue ret = (cc, tt) -> ListValue.wrap(result); // might be a trap - lazy evaluation
@@ -2067,19 +2078,19 @@ public class Expression implements Cloneable
             Value result = Value.NULL;
             for (int i=0; iterator.hasNext(); i++)
             {
-                Value next = iterator.next();
-                String var = next.boundVariable;
-                next.bindTo("_");
+                Value element = iterator.next();
+                String var = element.boundVariable;
+                Value next = element.bindTo("_");
                 int seriously = i;
                 c.setVariable("_", (cc, tt) -> next);
                 c.setVariable("_i", (cc, tt) -> new NumericValue(seriously).bindTo("_i"));
                 if(expr.evalValue(c).getBoolean())
                 {
-                    result = next;
-                    next.boundVariable = var;
+                    result = element;
+                    element.boundVariable = var;
                     break;
                 }
-                next.boundVariable = var;
+                element.boundVariable = var;
             }
             //revering scope
             ((ListValue) rval).fatality();
@@ -2105,19 +2116,19 @@ public class Expression implements Cloneable
             LazyValue result = LazyValue.TRUE;
             for (int i=0; iterator.hasNext(); i++)
             {
-                Value next = iterator.next();
-                String var = next.boundVariable;
-                next.bindTo("_");
+                Value element = iterator.next();
+                String var = element.boundVariable;
+                Value next = element.bindTo("_");
                 int seriously = i;
                 c.setVariable("_", (cc, tt) -> next);
                 c.setVariable("_i", (cc, tt) -> new NumericValue(seriously).bindTo("_i"));
                 if(!expr.evalValue(c).getBoolean())
                 {
                     result = LazyValue.FALSE;
-                    next.boundVariable = var;
+                    element.boundVariable = var;
                     break;
                 }
-                next.boundVariable = var;
+                element.boundVariable = var;
             }
             //revering scope
             ((ListValue) rval).fatality();
@@ -2149,9 +2160,9 @@ public class Expression implements Cloneable
             int successCount = 0;
             for (int i=0; iterator.hasNext(); i++)
             {
-                Value next = iterator.next();
-                String var = next.boundVariable;
-                next.bindTo("_");
+                Value element = iterator.next();
+                String var = element.boundVariable;
+                Value next = element.bindTo("_");
                 int seriously = i;
                 c.setVariable("_", (cc, tt) -> next);
                 c.setVariable("_i", (cc, tt) -> new NumericValue(seriously).bindTo("_i"));
@@ -2159,10 +2170,10 @@ public class Expression implements Cloneable
                     successCount++;
                 if (cond != null && cond.evalValue(c).getBoolean())
                 {
-                    next.boundVariable = var;
+                    element.boundVariable = var;
                     break;
                 }
-                next.boundVariable = var;
+                element.boundVariable = var;
             }
             //revering scope
             ((ListValue) rval).fatality();
@@ -2199,14 +2210,14 @@ public class Expression implements Cloneable
 
             while (iterator.hasNext())
             {
-                Value next = iterator.next();
-                String var = next.boundVariable;
-                next.bindTo("_");
+                Value element = iterator.next();
+                String var = element.boundVariable;
+                Value next = element.bindTo("_");
                 Value promiseWontChangeYou = acc;
                 c.setVariable("_a", (cc, tt) -> promiseWontChangeYou.bindTo("_a"));
                 c.setVariable("_", (cc, tt) -> next);
                 acc = expr.evalValue(c);
-                next.boundVariable = var;
+                element.boundVariable = var;
             }
             //reverting scope
             ((ListValue) rval).fatality();
@@ -2579,20 +2590,65 @@ public class Expression implements Cloneable
 
     }
 
+    /** built-in operators and functions, registered once and shared by all plain expressions */
+    private static final Expression BUILTINS = builtinRegistry().freeze();
+
     static Expression none = new Expression("null");
+
+    /**
+     * Registry of the built-in operators and functions, more can be added until it's frozen
+     */
+    static Expression builtinRegistry()
+    {
+        Expression registry = new Expression("", new HashMap<>(), new HashMap<>());
+        registry.VariablesAndConstants();
+        registry.UserDefinedFunctionsAndControlFlow();
+        registry.Operators();
+        registry.ArithmeticOperations();
+        registry.SystemFunctions();
+        registry.ListsLoopsAndHigherOrderFunctions();
+        return registry;
+    }
+
+    Expression freeze()
+    {
+        operators = Collections.unmodifiableMap(operators);
+        functions = Collections.unmodifiableMap(functions);
+        return this;
+    }
+
+    /**
+     * Source text as the expression sees it, so equal scripts compile to the same code
+     */
+    static String normalize(String expression)
+    {
+        return expression.trim().
+                replaceAll("\\r\\n?", "\n").
+                replaceAll(";+$", "");
+    }
+
     /**
      * @param expression .
      */
     public Expression(String expression)
     {
-        this.expression = expression.trim().
-                replaceAll("\\r\\n?", "\n").
-                replaceAll(";+$", "");VariablesAndConstants();
-        UserDefinedFunctionsAndControlFlow();
-        Operators();
-        ArithmeticOperations();
-        SystemFunctions();
-        ListsLoopsAndHigherOrderFunctions();
+        this(expression, BUILTINS);
+    }
+
+    /**
+     * @param expression .
+     * @param builtins frozen registry providing the operators and functions
+     */
+    Expression(String expression, Expression builtins)
+    {
+        this(expression, builtins.operators, builtins.functions);
+    }
+
+    private Expression(String expression, Map<String, ILazyOperator> operators, Map<String, ILazyFunction> functions)
+    {
+        this.expression = normalize(expression);
+        this.operators = operators;
+        this.functions = functions;
     }
 
     private List<Tokenizer.Token> shuntingYard()
@@ -2776,12 +2832,22 @@ public class Expression implements Cloneable
         return eval(c, Context.NONE);
     }
     private Value eval(Context c, Integer expectedType)
+    {
+        compile();
+        c.useSlots(variableSlots);
+        return evalValue(() -> ast, c, expectedType);
+    }
+
+    /**
+     * Builds the AST and the slot tables if they aren't built yet. Once compiled the expression isn't modified by
+     * evaluating it, so it can be shared between threads if it's published safely, see {@link CompiledScriptCache}
+     */
+    void compile()
     {
         if (ast == null)
         {
             ast = getAST();
         }
-        return evalValue(() -> ast, c, expectedType);
     }
 
     static Value evalValue(Supplier<LazyValue> exprProvider, Context c, Integer expectedType)
@@ -2808,38 +2874,92 @@ public class Expression implements Cloneable
         }
     }
 
+    /**
+     * Reads a variable through the slot it got at compile time, see {@link VariableSlots}
+     */
+    private static class VariableNode implements LazyValue
+    {
+        private final String name;
+        // position of the variable in the rpn, to find the variables of a function body
+        private final int position;
+        private VariableSlots table = null;
+        private int slot = -1;
+
+        private VariableNode(String name, int position)
+        {
+            this.name = name;
+            this.position = position;
+        }
+
+        @Override
+        public Value evalValue(Context c, Integer type)
+        {
+            LazyValue lazyVariable = c.getVariable(table, slot, name);
+            if (lazyVariable == null) // new variable
+            {
+                lazyVariable = (cc, tt) -> Value.ZERO.reboundedTo(name);
+                c.setVariable(name, lazyVariable);
+            }
+            return lazyVariable.evalValue(c);
+        }
+    }
+
+    private static void assignSlots(List<VariableNode> variables, int from, int to, VariableSlots table)
+    {
+        for (VariableNode variable : variables)
+        {
+            if (variable.table == null && variable.position >= from && variable.position < to)
+            {
+                variable.table = table;
+                variable.slot = table.add(variable.name);
+            }
+        }
+    }
+
     private LazyValue getAST()
     {
         Stack<LazyValue> stack = new Stack<>();
+        // rpn position where the code of each stack entry starts, the code of a node is contiguous in the rpn
+        Stack<Integer> starts = new Stack<>();
+        List<VariableNode> variables = new ArrayList<>();
         List<Tokenizer.Token> rpn = shuntingYard();
         validate(rpn);
-        for (final Tokenizer.Token token : rpn)
+        for (int position = 0; position < rpn.size(); position++)
         {
+            final Tokenizer.Token token = rpn.get(position);
+            int start = position;
             switch (token.type)
             {
                 case UNARY_OPERATOR:
                 {
                     final LazyValue value = stack.pop();
-                    LazyValue result = (c, t) -> operators.get(token.surface).lazyEval(c, t, this, token, value, null).evalValue(c);
+                    start = starts.pop();
+                    // operators are bound at compile time, not looked up by their surface on every evaluation
+                    final ILazyOperator op = getOperator(token);
+                    LazyValue result = (c, t) -> op.lazyEval(c, t, this, token, value, null).evalValue(c);
                     stack.push(result);
                     break;
                 }
                 case OPERATOR:
                     final LazyValue v1 = stack.pop();
+                    int bodyStart = starts.pop();
                     final LazyValue v2 = stack.pop();
-                    LazyValue result = (c,t) -> operators.get(token.surface).lazyEval(c, t,this, token, v2, v1).evalValue(c);
+                    start = starts.pop();
+                    final ILazyOperator op = getOperator(token);
+                    if (token.surface.equals("->"))
+                    {
+                        // locals of a function body get their own slots, as they run in their own frame
+                        VariableSlots bodySlots = new VariableSlots();
+                        assignSlots(variables, bodyStart, position, bodySlots);
+                        functionSlots.put(v1, bodySlots);
+                    }
+                    LazyValue result = (c,t) -> op.lazyEval(c, t,this, token, v2, v1).evalValue(c);
                     stack.push(result);
                     break;
                 case VARIABLE:
-                    stack.push((c, t) ->
-                    {
-                        if (!c.isAVariable(token.surface)) // new variable
-                        {
-                            c.setVariable(token.surface, (cc, tt ) -> Value.ZERO.reboundedTo(token.surface));
-                        }
-                        LazyValue lazyVariable = c.getVariable(token.surface);
-                        return lazyVariable.evalValue(c);
-                    });
+                    VariableNode variable = new VariableNode(token.surface, position);
+                    variables.add(variable);
+                    stack.push(variable);
                     break;
                 case FUNCTION:
                     String name = token.surface.toLowerCase(Locale.ROOT);
@@ -2861,12 +2981,14 @@ public class Expression implements Cloneable
                     while (!stack.isEmpty() && stack.peek() != LazyValue.PARAMS_START)
                     {
                         p.add(0, stack.pop());
+                        start = starts.pop();
                     }
                     if (!isKnown) p.add( (c, t) -> new StringValue(name));
 
                     if (stack.peek() == LazyValue.PARAMS_START)
                     {
                         stack.pop();
+                        start = starts.pop();
                     }
 
                     stack.push((c, t) -> f.lazyEval(c, t, this, token, p).evalValue(c));
@@ -2875,18 +2997,24 @@ public class Expression implements Cloneable
                     stack.push(LazyValue.PARAMS_START);
                     break;
                 case LITERAL:
-                    stack.push((c, t) ->
+                {
+                    // parsed once, not on every evaluation
+                    final double number;
+                    try
                     {
-                        try
-                        {
-                            return new NumericValue(token.surface);
-                        }
-                        catch (NumberFormatException exception)
+                        number = new BigDecimal(token.surface).doubleValue();
+                    }
+                    catch (NumberFormatException exception)
+                    {
+                        stack.push((c, t) ->
                         {
                             throw new ExpressionException(this, token, "Not a number");
-                        }
-                    });
+                        });
+                        break;
+                    }
+                    stack.push((c, t) -> NumericValue.of(number));
                     break;
+                }
                 case STRINGPARAM:
                     stack.push((c, t) -> new StringValue(token.surface) ); // was originally null
                     break;
@@ -2896,10 +3024,24 @@ public class Expression implements Cloneable
                 default:
                     throw new ExpressionException(this, token, "Unexpected token '" + token.surface + "'");
             }
+            starts.push(start);
         }
+        // everything not in a function body runs in the frame the expression is evaluated with
+        variableSlots = new VariableSlots();
+        assignSlots(variables, 0, rpn.size(), variableSlots);
         return stack.pop();
     }
 
+    private ILazyOperator getOperator(Tokenizer.Token token)
+    {
+        ILazyOperator op = operators.get(token.surface);
+        if (op == null)
+        {
+            throw new ExpressionException(this, token, "Unknown operator '" + token.surface + "'");
+        }
+        return op;
+    }
+
     private void validate(List<Tokenizer.Token> rpn)
     {
         /*-
@@ -0,0 +1,66 @@
+package carpet.script;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Slot table of the local variables of an expression or of a function body, built when the expression is compiled.
+ * Variable nodes capture their slot, so reading a local in a matching {@link Context} is an array access instead of a
+ * map lookup. Global variables never get a slot, they live in {@link ScriptHost#globalVariables}
+ */
+class VariableSlots
+{
+    static final VariableSlots EMPTY = new VariableSlots();
+
+    private final Object2IntOpenHashMap<String> slots = new Object2IntOpenHashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    VariableSlots()
+    {
+        slots.defaultReturnValue(-1);
+    }
+
+    static boolean isGlobal(String name)
+    {
+        return name.startsWith("global_");
+    }
+
+    /**
+     * Compile time only, returns the slot of the variable, adding it if needed, or -1 for global variables
+     */
+    int add(String name)
+    {
+        if (isGlobal(name))
+        {
+            return -1;
+        }
+        int slot = slots.getInt(name);
+        if (slot == -1)
+        {
+            slot = names.size();
+            slots.put(name, slot);
+            names.add(name);
+        }
+        return slot;
+    }
+
+    /**
+     * @return the slot of the variable, or -1 if it isn't used by the code of this table
+     */
+    int slotOf(String name)
+    {
+        return slots.getInt(name);
+    }
+
+    String getName(int slot)
+    {
+        return names.get(slot);
+    }
+
+    int size()
+    {
+        return names.size();
+    }
+}
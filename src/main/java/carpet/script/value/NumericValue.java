@@ -9,9 +9,53 @@ import static java.lang.Math.abs;
 
 public class NumericValue extends Value
 {
-    private Double value;
+    private final double value;
     final static double epsilon = 1024*Double.MIN_VALUE;
 
+    // shared instances of the small integers, like loop counters and coordinate offsets
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 1024;
+    private static final NumericValue[] cache = new NumericValue[CACHE_HIGH - CACHE_LOW + 1];
+    static
+    {
+        for (int i = 0; i < cache.length; i++)
+        {
+            cache[i] = new NumericValue((double) (i + CACHE_LOW));
+        }
+    }
+
+    /**
+     * Unbound result of an arithmetic operation, shared if it's a small integer.
+     * Use the constructors for values that are bound in place right after
+     */
+    public static NumericValue of(double value)
+    {
+        int i = (int) value;
+        // -0.0 is not cached, as it doesn't behave like 0 in divisions
+        if (i == value && i >= CACHE_LOW && i <= CACHE_HIGH && (i != 0 || Double.doubleToRawLongBits(value) == 0L))
+        {
+            return cache[i - CACHE_LOW];
+        }
+        return new NumericValue(value);
+    }
+
+    private boolean isShared()
+    {
+        int i = (int) value;
+        return i == value && i >= CACHE_LOW && i <= CACHE_HIGH && cache[i - CACHE_LOW] == this;
+    }
+
+    @Override
+    public Value bindTo(String var)
+    {
+        // shared values are never bound in place
+        if (isShared())
+        {
+            return reboundedTo(var);
+        }
+        return super.bindTo(var);
+    }
+
     public static NumericValue asNumber(Value v1)
     {
         if (!(v1 instanceof NumericValue))
@@ -49,7 +93,7 @@ public class NumericValue extends Value
     @Override
     public boolean getBoolean()
     {
-        return value != null && abs(value) > epsilon;
+        return abs(value) > epsilon;
     }
     public double getDouble()
     {
@@ -65,14 +109,14 @@ public class NumericValue extends Value
     {  // TODO test if definintn add(NumericVlaue) woud solve the casting
         if (v instanceof NumericValue)
         {
-            return new NumericValue(getDouble() + ((NumericValue) v).getDouble() );
+            return of(value + ((NumericValue) v).value);
         }
         return super.add(v);
     }
     public Value subtract(Value v) {  // TODO test if definintn add(NumericVlaue) woud solve the casting
         if (v instanceof NumericValue)
         {
-            return new NumericValue(getDouble() - (((NumericValue) v).getDouble()));
+            return of(value - ((NumericValue) v).value);
         }
         return super.subtract(v);
     }
@@ -80,7 +124,7 @@ public class NumericValue extends Value
     {
         if (v instanceof NumericValue)
         {
-            return new NumericValue(getDouble() * ((NumericValue) v).getDouble() );
+            return of(value * ((NumericValue) v).value);
         }
         if (v instanceof ListValue)
         {
@@ -92,7 +136,7 @@ public class NumericValue extends Value
     {
         if (v instanceof NumericValue)
         {
-            return new NumericValue(getDouble() / ((NumericValue) v).getDouble() );
+            return of(value / ((NumericValue) v).value);
         }
         return super.divide(v);
     }
@@ -114,7 +158,7 @@ public class NumericValue extends Value
         }
         if (o instanceof NumericValue)
         {
-            return value.compareTo(((NumericValue) o).getDouble());
+            return Double.compare(value, ((NumericValue) o).value);
         }
         return getString().compareTo(o.getString());
     }
@@ -127,7 +171,7 @@ public class NumericValue extends Value
         }
         if (o instanceof NumericValue)
         {
-            return !this.subtract(o).getBoolean();
+            return !(abs(value - ((NumericValue) o).value) > epsilon);
         }
         return super.equals(o);
     }
@@ -152,7 +196,7 @@ public class NumericValue extends Value
     @Override
     public int length()
     {
-        return Integer.toString(value.intValue()).length();
+        return Integer.toString((int) value).length();
     }
 
     @Override
@@ -6,6 +6,7 @@ import carpet.logging.microtiming.marker.MicroTimingMarkerManager;
 import carpet.utils.Messenger;
 import carpet.utils.TISCMConfig;
 import carpet.utils.Translations;
+import me.jellysquid.mods.lithium.LithiumConfig;
 import net.minecraft.command.CommandSource;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.dedicated.DedicatedServer;
@@ -615,6 +616,172 @@ public class CarpetSettings
     )
     public static boolean transDimensionInvisibleFix = false;
 
+    @Rule(
+            desc = "Tick every dimension in its own thread in parallel",
+            extra = {
+                    "The server thread waits for all dimensions to finish before the network and autosave phases",
+                    "Things inside a dimension still happen in the vanilla order, entities travelling through portals are teleported after all dimensions are ticked",
+                    "State shared by all dimensions, like entity ids, redstone dust updates and hopper counters, is kept per thread or synchronized",
+                    "WARNING: Anything that touches another dimension during the world tick, e.g. command blocks running `execute in`, is not thread safe",
+                    "The vanilla debug profiler (/debug) result is unreliable with this rule on"
+            },
+            category = {EXPERIMENTAL, OPTIMIZATION}
+    )
+    public static boolean parallelDimensionTicking = false;
+
+    @Rule(
+            desc = "Capture the last few thousand ticks of /profile telemetry when a tick takes longer than this many milliseconds",
+            extra = {
+                    "Use /profile spike to see the captured lag spike, and /profile spike clear to capture the next one",
+                    "Set it to 0 to disable lag spike capture"
+            },
+            options = {"0", "100", "250", "1000"},
+            strict = false,
+            validate = Validator.NONNEGATIVE_NUMBER.class,
+            category = COMMAND
+    )
+    public static double lagSpikeCaptureThreshold = 0;
+
+    @Rule(
+            desc = "Use the spare time between ticks for deferrable work",
+            extra = {
+                    "Pending newLight updates are processed, HUD loggers are rendered ahead of the update tick,",
+                    "due scarpet schedule_idle calls are run and portalSuperCache scans loaded chunks around players",
+                    "Work that doesn't fit into the spare time is done in the tick as usual"
+            },
+            category = OPTIMIZATION
+    )
+    public static boolean idleTimeTasks = false;
+
+    @Rule(
+            desc = "Skip per tick bookkeeping during /tick warp, and sync the clients only every this many milliseconds",
+            extra = {
+                    "HUD loggers, player list latencies and spark tick hooks are only updated in ticks when clients are synced, players and their packets are still processed every tick",
+                    "Set it to 0 to disable turbo tick warp"
+            },
+            options = {"0", "50", "250", "1000"},
+            strict = false,
+            validate = Validator.NONNEGATIVE_NUMBER.class,
+            category = {OPTIMIZATION, COMMAND}
+    )
+    public static int turboTickWarp = 0;
+
+    @Rule(
+            desc = "Use the tile tick scheduler from lithium instead of the vanilla one",
+            extra = {
+                    "Pending tile ticks are moved to the new scheduler at the start of the next tick, keeping their order",
+                    "Set in carpet.conf to choose the scheduler on startup"
+            },
+            validate = ValidateLithiumTickScheduler.class,
+            category = OPTIMIZATION
+    )
+    public static boolean lithiumTickScheduler = LithiumConfig.WORLD_TICK_SCHEDULER;
+
+    private static class ValidateLithiumTickScheduler extends Validator<Boolean>
+    {
+        @Override
+        public Boolean validate(CommandSource source, ParsedRule<Boolean> currentRule, Boolean newValue, String string)
+        {
+            LithiumConfig.WORLD_TICK_SCHEDULER = newValue;
+            return newValue;
+        }
+    }
+
+    @Rule(
+            desc = "Use the explosion optimization from lithium",
+            validate = ValidateLithiumExplosions.class,
+            category = OPTIMIZATION
+    )
+    public static boolean lithiumExplosions = LithiumConfig.WORLD_EXPLOSIONS;
+
+    private static class ValidateLithiumExplosions extends Validator<Boolean>
+    {
+        @Override
+        public Boolean validate(CommandSource source, ParsedRule<Boolean> currentRule, Boolean newValue, String string)
+        {
+            LithiumConfig.WORLD_EXPLOSIONS = newValue;
+            return newValue;
+        }
+    }
+
+    @Rule(
+            desc = "Cache the serialized id of tile entities and the block state of moving pistons",
+            validate = ValidateCacheTileEntitySerialization.class,
+            category = OPTIMIZATION
+    )
+    public static boolean cacheTileEntitySerialization = TISCMConfig.CACHE_TILE_ENTITY_SERIALIZATION;
+
+    private static class ValidateCacheTileEntitySerialization extends Validator<Boolean>
+    {
+        @Override
+        public Boolean validate(CommandSource source, ParsedRule<Boolean> currentRule, Boolean newValue, String string)
+        {
+            TISCMConfig.CACHE_TILE_ENTITY_SERIALIZATION = newValue;
+            return newValue;
+        }
+    }
+
+    @Rule(
+            desc = "Relight large batches of newLight updates with this many threads",
+            extra = {
+                    "Queued light updates are split into 4x4 chunk regions relit in parallel,",
+                    "then the updates crossing region boundaries are finished on the server thread",
+                    "Only used with rule newLight and at least 4096 queued updates. Set it to 0 to disable"
+            },
+            options = {"0", "2", "4", "8"},
+            strict = false,
+            validate = Validator.NONNEGATIVE_NUMBER.class,
+            category = {EXPERIMENTAL, OPTIMIZATION}
+    )
+    public static int parallelNewLightThreads = 0;
+
+    @Rule(
+            desc = "Scan newly loaded chunks for light sources on a background thread",
+            extra = {
+                    "The found light sources are relit on the server thread between ticks,",
+                    "the sky light of the chunk is still initialized when it's loaded",
+                    "Only used with rule newLight"
+            },
+            category = {EXPERIMENTAL, OPTIMIZATION}
+    )
+    public static boolean asyncNewLightInit = false;
+
+    @Rule(
+            desc = "Time budget of newLight updates in the lighting phase of a world tick, in microseconds",
+            extra = {
+                    "Duplicate queued positions are coalesced, and updates left when the budget is used up",
+                    "are deferred to the idle time and the following ticks",
+                    "Reading light of a chunk, e.g. for mob spawning or chunk packets, first processes the updates around it",
+                    "Only used with rule newLight. Set it to 0 to process every update in the tick"
+            },
+            options = {"0", "2000", "5000", "10000"},
+            strict = false,
+            validate = Validator.NONNEGATIVE_NUMBER.class,
+            category = {EXPERIMENTAL, OPTIMIZATION}
+    )
+    public static int newLightUpdateBudget = 0;
+
+    @Rule(
+            desc = "Skip neighbor updates to blocks which ignore them, like stone or glass",
+            extra = {
+                    "Blocks which don't override neighborChanged are found once per block,",
+                    "the blocks reacting to neighbor updates are updated in the vanilla order"
+            },
+            category = {EXPERIMENTAL, OPTIMIZATION}
+    )
+    public static boolean skipInertNeighborUpdates = false;
+
+    @Rule(
+            desc = "Send the block action packets of fired block events in one batch at the end of the block event phase",
+            extra = {
+                    "Events are grouped by chunk, so chunks out of blockEventPacketRange of a player are skipped at once,",
+                    "and a repeated chest, ender chest or shulker box viewer count packet of the same position in the batch is not sent again",
+                    "Use /profile blockevents to see the block events per chunk"
+            },
+            category = {EXPERIMENTAL, OPTIMIZATION}
+    )
+    public static boolean batchBlockEventPackets = false;
+
     // /$$$$$$$$ /$$$$$$  /$$$$$$   /$$$$$$  /$$      /$$
     //|__  $$__/|_  $$_/ /$$__  $$ /$$__  $$| $$$    /$$$
     //   | $$     | $$  | $$  \__/| $$  \__/| $$$$  /$$$$
@@ -0,0 +1,227 @@
+package carpet.utils;
+
+import carpet.helpers.IdleTaskScheduler;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.crash.CrashReport;
+import net.minecraft.crash.ReportedException;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.Util;
+import net.minecraft.util.math.BlockPos.PooledMutableBlockPos;
+import net.minecraft.world.EnumLightType;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkSection;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scans newly loaded chunks for block light sources on a background thread, see rule asyncNewLightInit
+ *
+ * The non-empty sections are copied into a packet buffer on the loading thread, the same way chunk packets are written,
+ * and the worker decodes the copy and collects the light sources in it. The found sources are committed on the server thread,
+ * between ticks or in idle time, by scheduling the same relight checks {@link LightInitHooks#initChunkLighting} does
+ *
+ * Committing a stale result is safe: a relight check recomputes the light of the position from the current world, and
+ * light sources placed after the snapshot are checked by the block change itself
+ */
+public class AsyncLightInit
+{
+    private static class Scan
+    {
+        private final World world;
+        private final Chunk chunk;
+        private final Future<IntArrayList> sources;
+
+        private Scan(World world, Chunk chunk, Future<IntArrayList> sources)
+        {
+            this.world = world;
+            this.chunk = chunk;
+            this.sources = sources;
+        }
+    }
+
+    // chunks might be loaded by dimension threads with parallelDimensionTicking
+    private static final Map<Chunk, Scan> pending = new ConcurrentHashMap<>();
+
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+    private static ExecutorService executor = null;
+
+    private static synchronized ExecutorService getExecutor()
+    {
+        if (executor == null)
+        {
+            executor = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 4), runnable -> {
+                Thread thread = new Thread(runnable, "Light Init Worker #" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Waits for the pending scans and commits them, called before the worlds are saved on server stop. Their chunks are
+     * already marked as initialized, so dropping a scan would leave its light sources unlit
+     */
+    public static synchronized void shutdown()
+    {
+        for (final Iterator<Scan> iterator = pending.values().iterator(); iterator.hasNext(); )
+        {
+            final Scan scan = iterator.next();
+            iterator.remove();
+            commit(scan);
+        }
+
+        if (executor != null)
+        {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    /**
+     * Snapshots the sections of the chunk and schedules the light source scan of them
+     */
+    public static void submit(final World world, final Chunk chunk)
+    {
+        final ChunkSection[] sections = chunk.getSections();
+        final PacketBuffer[] snapshots = new PacketBuffer[sections.length];
+
+        for (int j = 0; j < sections.length; ++j)
+        {
+            final ChunkSection section = sections[j];
+
+            if (section == Chunk.EMPTY_SECTION || section.isEmpty())
+                continue;
+
+            snapshots[j] = new PacketBuffer(Unpooled.buffer(section.getData().getSerializedSize()));
+            section.getData().write(snapshots[j]);
+        }
+
+        pending.put(chunk, new Scan(world, chunk, getExecutor().submit(() -> scan(snapshots))));
+    }
+
+    /**
+     * @return the light sources of the snapshots, packed as section << 12 | y << 8 | z << 4 | x
+     */
+    private static IntArrayList scan(final PacketBuffer[] snapshots)
+    {
+        final IntArrayList sources = new IntArrayList();
+
+        for (int j = 0; j < snapshots.length; ++j)
+        {
+            if (snapshots[j] == null)
+                continue;
+
+            final ChunkSection copy = new ChunkSection(j << 4, false);
+            copy.getData().read(snapshots[j]);
+
+            for (int y = 0; y < 16; ++y)
+            {
+                for (int z = 0; z < 16; ++z)
+                {
+                    for (int x = 0; x < 16; ++x)
+                    {
+                        final IBlockState state = copy.get(x, y, z);
+
+                        if (state.getLightValue() > 0)
+                            sources.add(j << 12 | y << 8 | z << 4 | x);
+                    }
+                }
+            }
+        }
+
+        return sources;
+    }
+
+    private static void commit(final Scan scan)
+    {
+        final IntArrayList sources;
+
+        try
+        {
+            sources = scan.sources.get();
+        }
+        catch (ExecutionException e)
+        {
+            throw new ReportedException(CrashReport.makeCrashReport(e.getCause(), "Exception scanning chunk light sources"));
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        final int xBase = scan.chunk.x << 4;
+        final int zBase = scan.chunk.z << 4;
+
+        final PooledMutableBlockPos pos = PooledMutableBlockPos.retain();
+
+        for (int i = 0; i < sources.size(); ++i)
+        {
+            final int source = sources.getInt(i);
+            pos.setPos(xBase + (source & 15), source >> 8, zBase + (source >> 4 & 15));
+            scan.world.checkLightFor(EnumLightType.BLOCK, pos);
+        }
+
+        pos.close();
+    }
+
+    /**
+     * Commits the finished scans, called on the server thread when no world is ticking
+     *
+     * @param deadline in {@link Util#nanoTime()}, or Long.MAX_VALUE to commit every finished scan
+     * @return true if there are finished scans left
+     */
+    public static boolean commitFinished(final long deadline)
+    {
+        if (pending.isEmpty())
+            return false;
+
+        // still committed when newLight is turned off, the vanilla engine relights the sources right away
+        for (final Iterator<Scan> iterator = pending.values().iterator(); iterator.hasNext(); )
+        {
+            final Scan scan = iterator.next();
+
+            if (!scan.sources.isDone())
+                continue;
+
+            if (Util.nanoTime() >= deadline)
+                return true;
+
+            iterator.remove();
+            commit(scan);
+        }
+
+        return false;
+    }
+
+    /**
+     * {@link IdleTaskScheduler} task, commits the scans finished before the start of the next tick
+     */
+    public static boolean commitIdle(final MinecraftServer server, final long deadline)
+    {
+        return commitFinished(deadline);
+    }
+
+    /**
+     * Waits for the scan of an unloading chunk, so its light is complete when it's saved
+     */
+    public static void onUnload(final Chunk chunk)
+    {
+        final Scan scan = pending.remove(chunk);
+
+        if (scan != null)
+            commit(scan);
+    }
+}
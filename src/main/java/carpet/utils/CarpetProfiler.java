@@ -1,237 +1,374 @@
 package carpet.utils;
 
 import carpet.settings.CarpetSettings;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
 import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityType;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.tileentity.TileEntityType;
 import net.minecraft.util.registry.IRegistry;
+import net.minecraft.world.World;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+/**
+ * Sections are interned to integer ids at registration, and timings are accumulated into primitive arrays
+ * owned by the ticking thread, so recording a section allocates nothing and needs no lock
+ *
+ * Section timings are always recorded. /profile health just diffs the accumulated values between the beginning and the end of the report
+ * Per entity timings cost a bit more so they are only recorded during /profile entities
+ */
 public class CarpetProfiler
 {
-    private static final HashMap<String, Long> time_repo = new HashMap<String, Long>();
-    public static int tick_health_requested = 0;
-    private static int tick_health_elapsed = 0;
-    private static int test_type = 0; //1 for ticks, 2 for entities;
-    private static String current_section = null;
-    private static long current_section_start = 0;
-    private static long current_tick_start = 0;
-    private static String [] GENERAL_SECTIONS = {"Network", "Autosave"};
-    private static String [] DIMENSIONS = {"Overworld","The End","The Nether"};
-    private static String [] SECTIONS = {
+    public static final String [] GENERAL_SECTIONS = {"Network", "Autosave"};
+    public static final String [] DIMENSIONS = {"Overworld","The End","The Nether"};
+    public static final String [] SECTIONS = {
             "Spawning","Blocks","Entities","Tile Entities","Entities(client)","Tile Entities(client)","Villages",  // legacy CM
             "Tile Tick", "Chunk Tick", "Block Events", "Player Chunk Map"  // TIS CM
     };
 
-    public static void prepare_tick_report(int ticks)
+    // indexes of SECTIONS, use them with a dimension index from get_dimension_index
+    public static final int SPAWNING = 0;
+    public static final int BLOCKS = 1;
+    public static final int ENTITIES = 2;
+    public static final int TILE_ENTITIES = 3;
+    public static final int ENTITIES_CLIENT = 4;
+    public static final int TILE_ENTITIES_CLIENT = 5;
+    public static final int VILLAGES = 6;
+    public static final int TILE_TICK = 7;
+    public static final int CHUNK_TICK = 8;
+    public static final int BLOCK_EVENTS = 9;
+    public static final int PLAYER_CHUNK_MAP = 10;
+
+    private static final List<String> section_names = new ArrayList<>();
+    // general section ids
+    public static final int NETWORK = register_section("Network");
+    public static final int AUTOSAVE = register_section("Autosave");
+    private static final int DIMENSION_SECTION_BASE = section_names.size();
+    static
     {
-        //maybe add so it only spams the sending player, but honestly - all may want to see it
-        time_repo.clear();
-        test_type = 1;
-        time_repo.put("tick",0L);
-        time_repo.put("Network",0L);
-        time_repo.put("Autosave",0L);
-        for (String section: GENERAL_SECTIONS)
-        {
-            time_repo.put(section,0L);
-        }
-        for (String level: DIMENSIONS)
+        for (String dimension : DIMENSIONS)
         {
-            for (String section: SECTIONS)
+            for (String section : SECTIONS)
             {
-                time_repo.put(level+"."+section,0L);
+                register_section(dimension + "." + section);
             }
         }
-
-        tick_health_elapsed = ticks;
-        tick_health_requested = ticks;
-        current_tick_start = 0L;
-        current_section_start = 0L;
-        current_section = null;
-
     }
 
-    public static void start_section(String dimension, String name)
+    // entity and tile entity types, interned lazily. Copy on write so readers in any thread need no lock
+    private static volatile Reference2IntOpenHashMap<Object> type_ids = new Reference2IntOpenHashMap<>();
+    private static final List<String> type_names = new CopyOnWriteArrayList<>();
+    // a dimension slot for the client side world as well
+    private static final int ENTITY_SLOTS = DIMENSIONS.length * 2;
+
+    private static class Accumulator
     {
-        if (tick_health_requested == 0L || test_type != 1)
-        {
-            return;
-        }
-        if (current_tick_start == 0L)
+        // null for the accumulator of finished threads
+        private final Thread owner;
+        private final long[] section_times = new long[section_names.size()];
+        private final long[][] entity_times = new long[ENTITY_SLOTS][0];
+        private final long[][] entity_counts = new long[ENTITY_SLOTS][0];
+        private int current_section = -1;
+        private long current_section_start = 0L;
+
+        private Accumulator(Thread owner)
         {
-            return;
+            this.owner = owner;
         }
-        if (current_section != null)
+
+        private void ensure_type_capacity(int slot, int type_id)
         {
-            end_current_section();
+            if (type_id >= this.entity_times[slot].length)
+            {
+                int size = Math.max(type_id + 1, type_names.size());
+                long[] times = new long[size];
+                long[] counts = new long[size];
+                System.arraycopy(this.entity_times[slot], 0, times, 0, this.entity_times[slot].length);
+                System.arraycopy(this.entity_counts[slot], 0, counts, 0, this.entity_counts[slot].length);
+                this.entity_times[slot] = times;
+                this.entity_counts[slot] = counts;
+            }
         }
-        String key = name;
-        if (dimension != null)
+
+        private void add(Accumulator other)
         {
-            key = dimension+"."+name;
+            for (int i = 0; i < this.section_times.length; i++)
+            {
+                this.section_times[i] += other.section_times[i];
+            }
+            for (int slot = 0; slot < ENTITY_SLOTS; slot++)
+            {
+                int size = other.entity_times[slot].length;
+                if (size == 0)
+                {
+                    continue;
+                }
+                this.ensure_type_capacity(slot, size - 1);
+                for (int i = 0; i < size; i++)
+                {
+                    this.entity_times[slot][i] += other.entity_times[slot][i];
+                    this.entity_counts[slot][i] += other.entity_counts[slot][i];
+                }
+            }
         }
-        current_section = key;
-        current_section_start = System.nanoTime();
     }
 
+    // the timings of finished threads are kept here, so the sums never go backwards
+    private static final Accumulator retired_accumulator = new Accumulator(null);
+    private static final List<Accumulator> accumulators = new CopyOnWriteArrayList<>(Arrays.asList(retired_accumulator));
+    private static final ThreadLocal<Accumulator> thread_accumulator = ThreadLocal.withInitial(() -> {
+        Accumulator accumulator = new Accumulator(Thread.currentThread());
+        accumulators.add(accumulator);
+        return accumulator;
+    });
+
+    public static int tick_health_requested = 0;
+    private static int tick_health_elapsed = 0;
+    private static int test_type = 0; //1 for ticks, 2 for entities;
+    // start of the current tick of the report, 0 in the tick the report is prepared in, so that partial tick isn't reported
+    private static long current_tick_start = 0;
+    private static long tick_start = 0;
+    private static long total_tick_time = 0;
+    private static long report_tick_time_start = 0;
+    private static long[] report_section_times_start = null;
 
-    public static class ProfilerToken
+    private static int register_section(String name)
     {
-        public String section;
-        public long start;
-        public ProfilerToken(String name, long start)
-        {
-            this.section = name;
-            this.start = start;
-        }
+        section_names.add(name);
+        return section_names.size() - 1;
     }
 
-    public static ProfilerToken start_section_concurrent(String dimension, String name, boolean isRemote)
+    public static String get_section_name(int section_id)
     {
-        if (tick_health_requested == 0L || test_type != 1)
-        {
-            return null;
-        }
-        if (current_tick_start == 0L)
-        {
-            return null;
-        }
+        return section_names.get(section_id);
+    }
 
-        String key = name;
-        if (dimension != null)
-        {
-            key = dimension+"."+name;
-        }
-        if (isRemote) key += "(client)";
-        long time = System.nanoTime();
-        return new ProfilerToken(key, time);
+    public static int get_dimension_index(int dimensionId)
+    {
+        return dimensionId == 0 ? 0 : (dimensionId < 0 ? 2 : 1);
+    }
+
+    public static int get_section_id(int dimension, int section)
+    {
+        return DIMENSION_SECTION_BASE + dimension * SECTIONS.length + section;
     }
 
-    public static ProfilerToken start_entity_section(String dimension, Entity e)
+    private static int get_type_id(Object type)
     {
-        if (tick_health_requested == 0L || test_type != 2)
+        int id = type_ids.getOrDefault(type, -1);
+        if (id == -1)
         {
-            return null;
+            id = intern_type(type);
         }
-        if (current_tick_start == 0L)
+        return id;
+    }
+
+    private static synchronized int intern_type(Object type)
+    {
+        Reference2IntOpenHashMap<Object> ids = type_ids;
+        if (ids.containsKey(type))
         {
-            return null;
+            return ids.getInt(type);
         }
-        String section = dimension+"."+ IRegistry.ENTITY_TYPE.getKey(e.getType()).toString().replaceFirst("minecraft:","");
-        if (e.getEntityWorld().isRemote)
-            section += "(client)";
-        long section_start = System.nanoTime();
-        return new ProfilerToken(section, section_start);
+        String name = type instanceof TileEntityType ?
+                TileEntityType.getId((TileEntityType<?>)type).toString() :
+                IRegistry.ENTITY_TYPE.getKey((EntityType<?>)type).toString();
+        ids = new Reference2IntOpenHashMap<>(ids);
+        ids.put(type, type_names.size());
+        type_names.add(name.replaceFirst("minecraft:",""));
+        type_ids = ids;
+        return type_names.size() - 1;
     }
 
-    public static ProfilerToken start_tileentity_section(String dimension, TileEntity e)
+    private static int get_entity_slot(int dimension, World world)
     {
-        if (tick_health_requested == 0L || test_type != 2)
+        return dimension * 2 + (world != null && world.isRemote ? 1 : 0);
+    }
+
+    private static long[] sum_section_times()
+    {
+        long[] times = new long[section_names.size()];
+        fill_section_times(times);
+        return times;
+    }
+
+    /**
+     * Sums up the accumulated time of every section from all threads into the given array, indexed by section id
+     */
+    public static void fill_section_times(long[] times)
+    {
+        Arrays.fill(times, 0L);
+        for (Accumulator accumulator : accumulators)
         {
-            return null;
+            for (int i = 0; i < times.length; i++)
+            {
+                times[i] += accumulator.section_times[i];
+            }
         }
-        if (current_tick_start == 0L)
+    }
+
+    public static void prepare_tick_report(int ticks)
+    {
+        //maybe add so it only spams the sending player, but honestly - all may want to see it
+        test_type = 1;
+        tick_health_elapsed = ticks;
+        tick_health_requested = ticks;
+        current_tick_start = 0L;
+    }
+
+    public static void start_section(int dimension, int section)
+    {
+        start_section(get_section_id(dimension, section));
+    }
+
+    public static void start_section(int section_id)
+    {
+        Accumulator accumulator = thread_accumulator.get();
+        long time = System.nanoTime();
+        if (accumulator.current_section != -1)
         {
-            return null;
+            accumulator.section_times[accumulator.current_section] += time - accumulator.current_section_start;
         }
-        String section = dimension+"."+ TileEntityType.getId(e.getType()).toString().replaceFirst("minecraft:","");
-        if (e.getWorld() == null)
-            section += "??";
-        else if (e.getWorld().isRemote)
-            section += "(client)";
-        long section_start = System.nanoTime();
-        return new ProfilerToken(section, section_start);
+        TickTimeline.onSectionSwitch(time, accumulator.current_section, section_id);
+        accumulator.current_section = section_id;
+        accumulator.current_section_start = time;
     }
 
     public static void end_current_section()
     {
-        if (tick_health_requested == 0L || test_type != 1)
-        {
-            return;
-        }
         long end_time = System.nanoTime();
-        if (current_tick_start == 0L)
-        {
-            return;
-        }
-        if (current_section == null)
+        Accumulator accumulator = thread_accumulator.get();
+        if (accumulator.current_section == -1)
         {
             CarpetSettings.LOG.error("finishing section that hasn't started");
             return;
         }
-        //CarpetSettings.LOG.error("finishing section "+current_section);
-        time_repo.put(current_section,time_repo.get(current_section)+end_time-current_section_start);
-        current_section = null;
-        current_section_start = 0;
+        accumulator.section_times[accumulator.current_section] += end_time - accumulator.current_section_start;
+        TickTimeline.onSectionSwitch(end_time, accumulator.current_section, -1);
+        accumulator.current_section = -1;
     }
 
-    public static void end_current_section_concurrent(ProfilerToken tok)
+    /**
+     * For sections that might be interleaved with the current section of the thread
+     *
+     * @return the start time which should be passed to end_current_section_concurrent
+     */
+    public static long start_section_concurrent()
     {
-        if (tick_health_requested == 0L || test_type != 1)
+        return System.nanoTime();
+    }
+
+    public static void end_current_section_concurrent(int dimension, int section, boolean isRemote, long start)
+    {
+        if (isRemote)
         {
-            return;
+            section = section == ENTITIES ? ENTITIES_CLIENT : TILE_ENTITIES_CLIENT;
         }
         long end_time = System.nanoTime();
-        if (current_tick_start == 0L)
+        int section_id = get_section_id(dimension, section);
+        thread_accumulator.get().section_times[section_id] += end_time - start;
+        TickTimeline.onSpan(start, end_time, section_id);
+    }
+
+    /**
+     * @return the start time which should be passed to end_current_entity_section, or 0 if entities are not being profiled
+     */
+    public static long start_entity_section()
+    {
+        if (tick_health_requested == 0L || test_type != 2 || current_tick_start == 0L)
         {
-            return;
+            return 0L;
         }
-        if (tok == null)
+        return System.nanoTime();
+    }
+
+    public static void end_current_entity_section(int dimension, Entity e, long start)
+    {
+        if (start != 0L)
         {
-            CarpetSettings.LOG.error("finishing section that hasn't started");
-            return;
+            record_entity_section(dimension, get_type_id(e.getType()), e.getEntityWorld(), start);
         }
-        //CarpetSettings.LOG.error("finishing section "+current_section);
-        time_repo.put(tok.section,time_repo.get(tok.section)+end_time-tok.start);
     }
 
-    public static void end_current_entity_section(ProfilerToken tok)
+    public static void end_current_tileentity_section(int dimension, TileEntity e, long start)
     {
-        if (tick_health_requested == 0L || test_type != 2)
+        if (start != 0L)
         {
-            return;
+            record_entity_section(dimension, get_type_id(e.getType()), e.getWorld(), start);
         }
+    }
+
+    private static void record_entity_section(int dimension, int type_id, World world, long start)
+    {
         long end_time = System.nanoTime();
-        if (current_tick_start == 0L)
-        {
-            return;
-        }
-        if (tok == null)
-        {
-            CarpetSettings.LOG.error("finishing entity/TE section that hasn't started");
-            return;
-        }
-        String time_section = "t."+tok.section;
-        String count_section = "c."+tok.section;
-        time_repo.put(time_section,time_repo.getOrDefault(time_section,0L)+end_time-tok.start);
-        time_repo.put(count_section,time_repo.getOrDefault(count_section,0L)+1);
+        Accumulator accumulator = thread_accumulator.get();
+        int slot = get_entity_slot(dimension, world);
+        accumulator.ensure_type_capacity(slot, type_id);
+        accumulator.entity_times[slot][type_id] += end_time - start;
+        accumulator.entity_counts[slot][type_id]++;
     }
 
-    public static void start_tick_profiling()
+    public static void start_tick_profiling(MinecraftServer server)
     {
-        current_tick_start = System.nanoTime();
+        tick_start = System.nanoTime();
+        if (tick_health_requested != 0 && current_tick_start == 0L)
+        {
+            // first tick of the report
+            report_tick_time_start = total_tick_time;
+            if (test_type == 1)
+            {
+                report_section_times_start = sum_section_times();
+            }
+        }
+        current_tick_start = tick_start;
+        TickTimeline.onTickBegin(tick_start, server.getTickCounter());
     }
 
     public static void end_tick_profiling(MinecraftServer server)
     {
-        if (current_tick_start == 0L)
+        if (tick_start == 0L)
+        {
+            return;
+        }
+        retire_finished_threads();
+        long end_time = System.nanoTime();
+        TickTimeline.onTickEnd(end_time, server.getTickCounter());
+        long tick_time = end_time - tick_start;
+        total_tick_time += tick_time;
+        TickHealthMonitor.getInstance().onTickEnd(server.getTickCounter(), tick_time);
+        if (tick_health_requested == 0 || current_tick_start == 0L)
         {
             return;
         }
-        time_repo.put("tick",time_repo.get("tick")+System.nanoTime()-current_tick_start);
         tick_health_elapsed --;
-        //CarpetSettings.LOG.error("tick count current at "+time_repo.get("tick"));
         if (tick_health_elapsed <= 0)
         {
             finalize_tick_report(server);
         }
     }
 
+    /**
+     * Moves the timings of finished threads, e.g. dimension ticker threads of a closed server, into the retired accumulator
+     */
+    private static void retire_finished_threads()
+    {
+        for (Accumulator accumulator : accumulators)
+        {
+            // isAlive returning false makes the writes of the finished thread visible
+            if (accumulator.owner != null && !accumulator.owner.isAlive())
+            {
+                retired_accumulator.add(accumulator);
+                accumulators.remove(accumulator);
+            }
+        }
+    }
+
     public static void finalize_tick_report(MinecraftServer server)
     {
         if (test_type == 1)
@@ -247,41 +384,41 @@ public class CarpetProfiler
 
     public static void cleanup_tick_report()
     {
-        time_repo.clear();
-        time_repo.put("tick",0L);
         test_type = 0;
         tick_health_elapsed = 0;
         tick_health_requested = 0;
-        current_tick_start = 0L;
-        current_section_start = 0L;
-        current_section = null;
-
+        report_section_times_start = null;
     }
 
     public static void finalize_tick_report_for_time(MinecraftServer server)
     {
         //print stats
-        long total_tick_time = time_repo.get("tick");
+        long total_tick_time = CarpetProfiler.total_tick_time - report_tick_time_start;
+        long[] time_repo = sum_section_times();
+        for (int i = 0; i < report_section_times_start.length; i++)
+        {
+            time_repo[i] -= report_section_times_start[i];
+        }
         double divider = 1.0D/tick_health_requested/1000000;
         Messenger.print_server_message(server, String.format("Average tick time: %.3fms",divider*total_tick_time));
         long accumulated = 0L;
 
-        for (String section: GENERAL_SECTIONS)
+        for (int i = 0; i < GENERAL_SECTIONS.length; i++)
         {
-            double amount = divider*time_repo.get(section);
+            double amount = divider*time_repo[i];
             if (amount > 0.01)
             {
-                accumulated += time_repo.get(section);
-                Messenger.print_server_message(server, String.format("%s: %.3fms", section, amount));
+                accumulated += time_repo[i];
+                Messenger.print_server_message(server, String.format("%s: %.3fms", GENERAL_SECTIONS[i], amount));
             }
         }
 
-        for (String dimension: DIMENSIONS)
+        for (int dimension = 0; dimension < DIMENSIONS.length; dimension++)
         {
             boolean hasSomethin = false;
-            for (String section: SECTIONS)
+            for (int section = 0; section < SECTIONS.length; section++)
             {
-                double amount = divider*time_repo.get(dimension+"."+section);
+                double amount = divider*time_repo[get_section_id(dimension, section)];
                 if (amount > 0.01)
                 {
                     hasSomethin = true;
@@ -292,15 +429,16 @@ public class CarpetProfiler
             {
                 continue;
             }
-            Messenger.print_server_message(server, dimension+":");
-            for (String section: SECTIONS)
+            Messenger.print_server_message(server, DIMENSIONS[dimension]+":");
+            for (int section = 0; section < SECTIONS.length; section++)
             {
-                double amount = divider*time_repo.get(dimension+"."+section);
+                long time = time_repo[get_section_id(dimension, section)];
+                double amount = divider*time;
                 if (amount > 0.01)
                 {
-                    if (!(section.endsWith("(client)")))
-                        accumulated += time_repo.get(dimension+"."+section);
-                    Messenger.print_server_message(server, String.format(" - %s: %.3fms", section, amount));
+                    if (!(SECTIONS[section].endsWith("(client)")))
+                        accumulated += time;
+                    Messenger.print_server_message(server, String.format(" - %s: %.3fms", SECTIONS[section], amount));
                 }
             }
         }
@@ -310,66 +448,86 @@ public class CarpetProfiler
         Messenger.print_server_message(server, String.format("The Rest, whatever that might be: %.3fms",divider*rest));
     }
 
+    private static class EntityEntry
+    {
+        private final String dimension;
+        private final String name;
+        private final long time;
+        private final long count;
+
+        private EntityEntry(String dimension, String name, long time, long count)
+        {
+            this.dimension = dimension;
+            this.name = name;
+            this.time = time;
+            this.count = count;
+        }
+    }
+
     public static void finalize_tick_report_for_entities(MinecraftServer server)
     {
         //print stats
-        long total_tick_time = time_repo.get("tick");
+        long total_tick_time = CarpetProfiler.total_tick_time - report_tick_time_start;
         double divider = 1.0D/tick_health_requested/1000000;
         double divider_1 = 1.0D/(tick_health_requested-1)/1000000;
         Messenger.print_server_message(server, String.format("Average tick time: %.3fms",divider*total_tick_time));
-        time_repo.remove("tick");
-        Messenger.print_server_message(server, "Top 10 counts:");
-        int total = 0;
-        for ( Map.Entry<String, Long> entry : time_repo.entrySet().stream().sorted(Map.Entry.comparingByValue(Comparator.reverseOrder())).collect(Collectors.toList()) )
+
+        List<EntityEntry> entries = new ArrayList<>();
+        for (int slot = 0; slot < ENTITY_SLOTS; slot++)
         {
-            if (entry.getKey().startsWith("t."))
+            long[] times = new long[type_names.size()];
+            long[] counts = new long[type_names.size()];
+            for (Accumulator accumulator : accumulators)
             {
-                continue;
+                for (int i = 0; i < accumulator.entity_times[slot].length; i++)
+                {
+                    times[i] += accumulator.entity_times[slot][i];
+                    counts[i] += accumulator.entity_counts[slot][i];
+                }
             }
-            total++;
-            if (total > 10)
+            for (int i = 0; i < times.length; i++)
             {
-                continue;
+                if (counts[i] > 0)
+                {
+                    String name = type_names.get(i) + (slot % 2 == 1 ? "(client)" : "");
+                    entries.add(new EntityEntry(DIMENSIONS[slot / 2], name, times[i], counts[i]));
+                }
             }
-            String[] parts = entry.getKey().split("\\.");
-            String dim = parts[1];
-            String name = parts[2];
-            int penalty = name.endsWith("(client)") ? 1 :0;
-            Messenger.print_server_message(server, String.format(" - %s in %s: %.3f",name, dim, 1.0D*entry.getValue()/(tick_health_requested-penalty)));
+        }
+
+        Messenger.print_server_message(server, "Top 10 counts:");
+        entries.sort(Comparator.comparingLong((EntityEntry entry) -> entry.count).reversed());
+        for (int i = 0; i < entries.size() && i < 10; i++)
+        {
+            EntityEntry entry = entries.get(i);
+            int penalty = entry.name.endsWith("(client)") ? 1 :0;
+            Messenger.print_server_message(server, String.format(" - %s in %s: %.3f",entry.name, entry.dimension, 1.0D*entry.count/(tick_health_requested-penalty)));
         }
         Messenger.print_server_message(server, "Top 10 grossing:");
-        total = 0;
-        for ( Map.Entry<String, Long> entry : time_repo.entrySet().stream().sorted(Map.Entry.comparingByValue(Comparator.reverseOrder())).collect(Collectors.toList()) )
+        entries.sort(Comparator.comparingLong((EntityEntry entry) -> entry.time).reversed());
+        for (int i = 0; i < entries.size() && i < 10; i++)
         {
-            if (entry.getKey().startsWith("c."))
-            {
-                continue;
-            }
-            total++;
-            if (total > 10)
-            {
-                continue;
-            }
-            String[] parts = entry.getKey().split("\\.");
-            String dim = parts[1];
-            String name = parts[2];
-            double applicableDivider = name.endsWith("(client)") ? divider :divider_1;
-            Messenger.print_server_message(server, String.format(" - %s in %s: %.3fms",name, dim, applicableDivider*entry.getValue()));
+            EntityEntry entry = entries.get(i);
+            double applicableDivider = entry.name.endsWith("(client)") ? divider :divider_1;
+            Messenger.print_server_message(server, String.format(" - %s in %s: %.3fms",entry.name, entry.dimension, applicableDivider*entry.time));
         }
-
     }
 
     public static void prepare_entity_report(int ticks)
     {
         //maybe add so it only spams the sending player, but honestly - all may want to see it
-        time_repo.clear();
-        time_repo.put("tick",0L);
+        // entity timings are only recorded during the report, so it's fine to just reset them
+        for (Accumulator accumulator : accumulators)
+        {
+            for (int slot = 0; slot < ENTITY_SLOTS; slot++)
+            {
+                Arrays.fill(accumulator.entity_times[slot], 0L);
+                Arrays.fill(accumulator.entity_counts[slot], 0L);
+            }
+        }
         test_type = 2;
         tick_health_elapsed = ticks;
         tick_health_requested = ticks;
         current_tick_start = 0L;
-        current_section_start = 0L;
-        current_section = null;
-
     }
 }
@@ -1,6 +1,7 @@
 package carpet.utils;
 
 import carpet.helpers.HopperCounter;
+import carpet.helpers.TickPacer;
 import carpet.helpers.TickSpeed;
 import carpet.logging.AbstractHUDLogger;
 import carpet.logging.LoggerRegistry;
@@ -26,22 +27,24 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class HUDController
 {
-    public static Map<EntityPlayer, List<ITextComponent>> player_huds = new HashMap<>();
+    // thread safe, since loggers might be triggered in parallel ticked dimensions
+    public static Map<EntityPlayer, List<ITextComponent>> player_huds = new ConcurrentHashMap<>();
 
     public static void addMessage(EntityPlayer player, ITextComponent hudMessage)
     {
-        if (!player_huds.containsKey(player))
+        List<ITextComponent> messages = player_huds.computeIfAbsent(player, p -> new ArrayList<>());
+        synchronized (messages)
         {
-            player_huds.put(player, new ArrayList<>());
+            if (!messages.isEmpty())
+            {
+                messages.add(new TextComponentString("\n"));
+            }
+            messages.add(hudMessage);
         }
-        else
-        {
-            player_huds.get(player).add(new TextComponentString("\n"));
-        }
-        player_huds.get(player).add(hudMessage);
     }
     public static void clear_player(EntityPlayer player)
     {
@@ -52,59 +55,153 @@ public class HUDController
     }
 
 
+    // hud sections in display order, one per hud logger
+    private static final int TPS = 0;
+    private static final int MOBCAPS = 1;
+    private static final int COUNTER = 2;
+    private static final int PACKETS = 3;
+    private static final int VILLAGECOUNT = 4;
+    private static final int MEMORY = 5;
+    private static final int AUTOSAVE = 6;
+    private static final int LIFETIME = 7;
+    private static final int TICKWARP = 8;
+    private static final int SECTION_COUNT = 9;
+    // sections only showing state changed by world ticks, which can be rendered before the hud update tick starts.
+    // The others read the tick counter, tick warp state or counters updated in between
+    private static final boolean[] PRERENDERED_SECTIONS = {false, true, false, false, true, false, false, true, false};
+
+    // stable sections rendered in the idle time right before the hud update tick, see prerender_hud
+    private static Map<EntityPlayer, List<ITextComponent>>[] prerendered_sections = null;
+    private static int prerendered_tick = -1;
+
     public static void update_hud(MinecraftServer server)
     {
-        if(server.getTickCounter() % CarpetSettings.HUDLoggerUpdateInterval != 0)
+        // TISCM turbo tick warp, update whenever clients are synced
+        if (TickSpeed.is_turbo_warping() ? !TickSpeed.sync_clients : server.getTickCounter() % CarpetSettings.HUDLoggerUpdateInterval != 0)
             return;
 
-        player_huds.clear();
+        Map<EntityPlayer, List<ITextComponent>>[] prerendered = prerendered_tick == server.getTickCounter() ? prerendered_sections : null;
+        prerendered_sections = null;
 
-        if (LoggerRegistry.__tps)
-            LoggerRegistry.getLogger("tps").log(()-> send_tps_display(server));
+        Map<EntityPlayer, List<ITextComponent>>[] sections = new_sections();
+        for (int i = 0; i < SECTION_COUNT; i++)
+            sections[i] = prerendered != null && prerendered[i] != null ? prerendered[i] : render_section(server, i);
 
-        if (LoggerRegistry.__mobcaps)
-            LoggerRegistry.getLogger("mobcaps").log((option, player) -> {
-                int dim = player.dimension.getId();
-                switch (option)
-                {
-                    case "overworld":
-                        dim = 0;
-                        break;
-                    case "nether":
-                        dim = -1;
-                        break;
-                    case "end":
-                        dim = 1;
-                        break;
-                }
-                return send_mobcap_display(dim);
-            });
-
-        if(LoggerRegistry.__counter)
-            LoggerRegistry.getLogger("counter").log((option)->send_counter_info(server, option));
+        send_huds(sections);
+    }
 
-        if (LoggerRegistry.__packets)
-            LoggerRegistry.getLogger("packets").log(HUDController::packetCounter);
+    /**
+     * Idle task, renders the stable hud sections of the next tick ahead of time if it's a hud update tick
+     * Nothing changes them between the end of a tick and the hud update at the start of the next one,
+     * so the result is the same as rendering them in the next tick
+     */
+    public static boolean prerender_hud(MinecraftServer server, long deadline)
+    {
+        int nextTick = server.getTickCounter() + 1;
+        if (nextTick % CarpetSettings.HUDLoggerUpdateInterval == 0 && (prerendered_sections == null || prerendered_tick != nextTick))
+        {
+            Map<EntityPlayer, List<ITextComponent>>[] sections = new_sections();
+            for (int i = 0; i < SECTION_COUNT; i++)
+                if (PRERENDERED_SECTIONS[i])
+                    sections[i] = render_section(server, i);
+            prerendered_sections = sections;
+            prerendered_tick = nextTick;
+        }
+        return false;
+    }
 
-        if (LoggerRegistry.__villagecount)
-            LoggerRegistry.getLogger("villagecount").log(() -> send_total_villages(server));
+    @SuppressWarnings("unchecked")
+    private static Map<EntityPlayer, List<ITextComponent>>[] new_sections()
+    {
+        return new Map[SECTION_COUNT];
+    }
 
-        if (LoggerRegistry.__memory)
-            LoggerRegistry.getLogger("memory").log(HUDController::send_mem_usage);
+    /**
+     * @return the messages of the section for every player logging it
+     */
+    private static Map<EntityPlayer, List<ITextComponent>> render_section(MinecraftServer server, int section)
+    {
+        player_huds.clear();
 
-        if (LoggerRegistry.__autosave)
-            LoggerRegistry.getLogger("autosave").log(AutoSaveLogHelper::send_hud_info);
+        switch (section)
+        {
+            case TPS:
+                if (LoggerRegistry.__tps)
+                    LoggerRegistry.getLogger("tps").log(()-> send_tps_display(server));
+                break;
+            case MOBCAPS:
+                if (LoggerRegistry.__mobcaps)
+                    LoggerRegistry.getLogger("mobcaps").log((option, player) -> {
+                        int dim = player.dimension.getId();
+                        switch (option)
+                        {
+                            case "overworld":
+                                dim = 0;
+                                break;
+                            case "nether":
+                                dim = -1;
+                                break;
+                            case "end":
+                                dim = 1;
+                                break;
+                        }
+                        return send_mobcap_display(dim);
+                    });
+                break;
+            case COUNTER:
+                if(LoggerRegistry.__counter)
+                    LoggerRegistry.getLogger("counter").log((option)->send_counter_info(server, option));
+                break;
+            case PACKETS:
+                if (LoggerRegistry.__packets)
+                    LoggerRegistry.getLogger("packets").log(HUDController::packetCounter);
+                break;
+            case VILLAGECOUNT:
+                if (LoggerRegistry.__villagecount)
+                    LoggerRegistry.getLogger("villagecount").log(() -> send_total_villages(server));
+                break;
+            case MEMORY:
+                if (LoggerRegistry.__memory)
+                    LoggerRegistry.getLogger("memory").log(HUDController::send_mem_usage);
+                break;
+            case AUTOSAVE:
+                if (LoggerRegistry.__autosave)
+                    LoggerRegistry.getLogger("autosave").log(AutoSaveLogHelper::send_hud_info);
+                break;
+            case LIFETIME:
+                doHudLogging(LoggerRegistry.__lifeTime, LifeTimeHUDLogger.NAME, LifeTimeHUDLogger.getInstance());
+                break;
+            case TICKWARP:
+                doHudLogging(LoggerRegistry.__tickWarp, TickWarpHUDLogger.NAME, TickWarpHUDLogger.getInstance());
+                break;
+        }
 
-        doHudLogging(LoggerRegistry.__lifeTime, LifeTimeHUDLogger.NAME, LifeTimeHUDLogger.getInstance());
-        doHudLogging(LoggerRegistry.__tickWarp, TickWarpHUDLogger.NAME, TickWarpHUDLogger.getInstance());
+        Map<EntityPlayer, List<ITextComponent>> messages = new HashMap<>(player_huds);
+        player_huds.clear();
+        return messages;
+    }
 
-        for (EntityPlayer player: player_huds.keySet())
+    private static void send_huds(Map<EntityPlayer, List<ITextComponent>>[] sections)
+    {
+        Map<EntityPlayer, List<ITextComponent>> huds = new HashMap<>();
+        for (Map<EntityPlayer, List<ITextComponent>> section : sections)
         {
+            section.forEach((player, messages) -> {
+                List<ITextComponent> hud = huds.computeIfAbsent(player, p -> new ArrayList<>());
+                if (!hud.isEmpty())
+                {
+                    hud.add(new TextComponentString("\n"));
+                }
+                hud.addAll(messages);
+            });
+        }
+
+        huds.forEach((player, hud) -> {
             SPacketPlayerListHeaderFooter packet = new SPacketPlayerListHeaderFooter();
             packet.setHeader(new TextComponentString(""));
-            packet.setFooter(Messenger.c(player_huds.get(player).toArray(new Object[0])));
+            packet.setFooter(Messenger.c(hud.toArray(new Object[0])));
             ((EntityPlayerMP)player).connection.sendPacket(packet);
-        }
+        });
     }
 
     // ported from carpet tis addition for easier formatting hud update
@@ -123,7 +220,8 @@ public class HUDController
         String color = Messenger.heatmap_color(MSPT,TickSpeed.mspt);
         return new ITextComponent[]{Messenger.c(
                 "g TPS: ", String.format(Locale.US, "%s %.1f",color, TPS),
-                "g  MSPT: ", String.format(Locale.US,"%s %.1f", color, MSPT))};
+                "g  MSPT: ", String.format(Locale.US,"%s %.1f", color, MSPT),
+                "g  Jitter: ", String.format(Locale.US,"g %.2f", TickPacer.getJitter()))};
     }
 
     private static ITextComponent [] send_mobcap_display(int dim)
@@ -1,5 +1,6 @@
 package carpet.utils;
 
+import carpet.settings.CarpetSettings;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.BlockPos.PooledMutableBlockPos;
@@ -52,27 +53,10 @@ public class LightInitHooks
 
         final PooledMutableBlockPos pos = PooledMutableBlockPos.retain();
 
-        final ChunkSection[] ChunkSection = chunk.getSections();
-
-        for (int j = 0; j < ChunkSection.length; ++j)
-        {
-            final ChunkSection blockStorage = ChunkSection[j];
-
-            if (blockStorage == Chunk.EMPTY_SECTION)
-                continue;
-
-            for (int x = 0; x < 16; ++x)
-            {
-                for (int z = 0; z < 16; ++z)
-                {
-                    for (int y = 0; y < 16; ++y)
-                    {
-                        if (LightUtils.getLightValue(blockStorage.get(x, y, z), world, pos.setPos(xBase + x, (j << 4) + y, zBase + z)) > 0)
-                            world.checkLightFor(EnumLightType.BLOCK, pos);
-                    }
-                }
-            }
-        }
+        if (CarpetSettings.asyncNewLightInit && !world.isRemote)
+            AsyncLightInit.submit(world, chunk);
+        else
+            scheduleLightSourceChecks(world, chunk, pos);
 
         if (world.dimension.hasSkyLight())
         {
@@ -103,6 +87,34 @@ public class LightInitHooks
         pos.close();
     }
 
+    private static void scheduleLightSourceChecks(final World world, final Chunk chunk, final PooledMutableBlockPos pos)
+    {
+        final int xBase = chunk.x << 4;
+        final int zBase = chunk.z << 4;
+
+        final ChunkSection[] ChunkSection = chunk.getSections();
+
+        for (int j = 0; j < ChunkSection.length; ++j)
+        {
+            final ChunkSection blockStorage = ChunkSection[j];
+
+            if (blockStorage == Chunk.EMPTY_SECTION)
+                continue;
+
+            for (int x = 0; x < 16; ++x)
+            {
+                for (int z = 0; z < 16; ++z)
+                {
+                    for (int y = 0; y < 16; ++y)
+                    {
+                        if (LightUtils.getLightValue(blockStorage.get(x, y, z), world, pos.setPos(xBase + x, (j << 4) + y, zBase + z)) > 0)
+                            world.checkLightFor(EnumLightType.BLOCK, pos);
+                    }
+                }
+            }
+        }
+    }
+
     static void initNeighborLight(final World world, final Chunk chunk, final Chunk nChunk, final EnumFacing nDir)
     {
         final int flag = 1 << nDir.getHorizontalIndex();
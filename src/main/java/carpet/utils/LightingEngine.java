@@ -1,9 +1,21 @@
 package carpet.utils;
 
+import carpet.settings.CarpetSettings;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.block.Block;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.client.Minecraft;
+import net.minecraft.crash.CrashReport;
+import net.minecraft.fluid.IFluidState;
+import net.minecraft.init.Blocks;
+import net.minecraft.init.Fluids;
 import net.minecraft.profiler.Profiler;
+import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.EnumFacing;
+import net.minecraft.util.ReportedException;
+import net.minecraft.util.Util;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.BlockPos.MutableBlockPos;
 import net.minecraft.util.math.MathHelper;
@@ -12,11 +24,23 @@ import net.minecraft.world.EnumLightType;
 import net.minecraft.world.IBlockReader;
 import net.minecraft.world.World;
 import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.NibbleArray;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import javax.annotation.Nullable;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class LightingEngine {
     private static final int MAX_SCHEDULED_COUNT = 1 << 22;
@@ -26,6 +50,8 @@ public class LightingEngine {
     private static final Logger logger = LogManager.getLogger();
 
     private final World world;
+    // null for region workers, the profiler isn't thread safe
+    @Nullable
     private final Profiler profiler;
 
     //Layout of longs: [padding(4)] [y(8)] [x(26)] [z(26)]
@@ -42,6 +68,15 @@ public class LightingEngine {
 
     private boolean updating = false;
 
+    // TISCM newLight update budget
+    // With rule newLightUpdateBudget, positions are queued at most once, and the chunks with queued positions are tracked,
+    // so that readers only flush the updates which can affect the chunk they read
+    private final LongOpenHashSet[] queuedPositions = new LongOpenHashSet[EnumLightType.values().length];
+    private final LongOpenHashSet[] queuedChunks = new LongOpenHashSet[EnumLightType.values().length];
+    private final PooledLongQueue batchQueue = new PooledLongQueue();
+    // queued positions taken per run of budgeted processing, the time is checked in between
+    private static final int BATCH_SIZE = 1024;
+
     //Layout parameters
     //Length of bit segments
     private static final int
@@ -82,8 +117,27 @@ public class LightingEngine {
     //Mask to extract chunk idenitfier
     private static final long mChunk = ((mX >> 4) << (4 + sX)) | ((mZ >> 4) << (4 + sZ));
 
+    // TISCM parallel newLight
+    // Regions are REGION_CHUNKS x REGION_CHUNKS chunks large. The x and z offsets of the layout are multiples of the region size,
+    // so masking a packed position gives the region it belongs to
+    private static final int REGION_SHIFT = 6;
+    private static final int REGION_CHUNKS = 1 << (REGION_SHIFT - 4);
+    private static final long mRegion = ((mX >> REGION_SHIFT) << (REGION_SHIFT + sX)) | ((mZ >> REGION_SHIFT) << (REGION_SHIFT + sZ));
+    // fewer queued updates than this are processed on the calling thread only
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+    private static ExecutorService executor = null;
+    private static int executorThreads = 0;
+
+    // the region a worker engine is processing, null for the engine of the world
+    @Nullable
+    private LightRegion region = null;
+    private final List<LightingEngine> workerEngines = new ArrayList<>();
+
     //Stored light type to reduce amount of method parameters
     private EnumLightType lightType;
+    private boolean hasSkyLight;
 
     //Iteration state data
     //Cache position to avoid allocation of new object each time
@@ -101,13 +155,20 @@ public class LightingEngine {
     private final int[] neighborsLight = new int[6];
 
     public LightingEngine(final World world)
+    {
+        this(world, false);
+    }
+
+    private LightingEngine(final World world, final boolean worker)
     {
         this.world = world;
-        this.profiler = world.profiler;
+        this.profiler = worker ? null : world.profiler;
 
         for (int i = 0; i < EnumLightType.values().length; ++i)
         {
             this.queuedLightUpdates[i] = new PooledLongQueue();
+            this.queuedPositions[i] = new LongOpenHashSet();
+            this.queuedChunks[i] = new LongOpenHashSet();
         }
 
         for (int i = 0; i < this.queuedDarkenings.length; ++i)
@@ -141,6 +202,16 @@ public class LightingEngine {
     {
         final PooledLongQueue queue = this.queuedLightUpdates[lightType.ordinal()];
 
+        // TISCM newLight update budget, coalesce duplicate positions
+        if (this.isBudgeted())
+        {
+            if (!this.queuedPositions[lightType.ordinal()].add(pos))
+            {
+                return;
+            }
+            this.queuedChunks[lightType.ordinal()].add(pos & mChunk);
+        }
+
         queue.add(pos);
 
         //make sure there are not too many queued light updates
@@ -164,8 +235,20 @@ public class LightingEngine {
      */
     public void procLightUpdates(final EnumLightType lightType)
     {
-        final PooledLongQueue queue = this.queuedLightUpdates[lightType.ordinal()];
+        this.procLightUpdates(lightType, this.queuedLightUpdates[lightType.ordinal()]);
 
+        if (this.queuedLightUpdates[lightType.ordinal()].isEmpty())
+        {
+            this.queuedPositions[lightType.ordinal()].clear();
+            this.queuedChunks[lightType.ordinal()].clear();
+        }
+    }
+
+    /**
+     * Processes the updates of the given queue, which is either the queue of the light type or {@link #batchQueue}
+     */
+    private void procLightUpdates(final EnumLightType lightType, final PooledLongQueue queue)
+    {
         if (queue.isEmpty())
         {
             return;
@@ -186,11 +269,20 @@ public class LightingEngine {
 
         this.updating = true;
 
-        this.profiler.startSection("lighting");
+        this.startSection("lighting");
+
+        // TISCM parallel newLight, leaves the updates crossing region boundaries in the queue
+        if (this.region == null && !this.world.isRemote && CarpetSettings.parallelNewLightThreads > 0 && queue.size() >= PARALLEL_THRESHOLD)
+        {
+            this.startSection("parallel");
+            this.procRegionsInParallel(lightType, queue);
+            this.endSection();
+        }
 
         this.lightType = lightType;
+        this.hasSkyLight = this.world.dimension.hasSkyLight();
 
-        this.profiler.startSection("checking");
+        this.startSection("checking");
 
         //process the queued updates and enqueue them for further processing
         for (this.curQueue = queue; this.nextItem(); )
@@ -237,12 +329,12 @@ public class LightingEngine {
             }
         }
 
-        this.profiler.endSection();
+        this.endSection();
 
         //Iterate through enqueued updates (brightening and darkening in parallel) from brightest to darkest so that we only need to iterate once
         for (int curLight = MAX_LIGHT; curLight >= 0; --curLight)
         {
-            this.profiler.startSection("darkening");
+            this.startSection("darkening");
 
             for (this.curQueue = this.queuedDarkenings[curLight]; this.nextItem(); )
             {
@@ -251,9 +343,9 @@ public class LightingEngine {
                     continue;
                 }
 
-                final IBlockState state = this.curToState();
-                final int luminosity = this.curToLuminosity(state);
-                final int opacity = luminosity >= MAX_LIGHT - 1 ? 1 : this.curToOpac(state); //if luminosity is high enough, opacity is irrelevant
+                final int properties = getLightProperties(this.curToState());
+                final int luminosity = this.curToLuminosity(properties);
+                final int opacity = luminosity >= MAX_LIGHT - 1 ? 1 : properties >> 4; //if luminosity is high enough, opacity is irrelevant
 
                 //only darken neighbors if we indeed became darker
                 if (this.calcNewLightFromCur(luminosity, opacity) < curLight)
@@ -271,7 +363,10 @@ public class LightingEngine {
 
                         if (nChunk == null)
                         {
-                            LightBoundaryCheckHooks.flagOuterSecBoundaryForUpdate(this.curChunk, this.curPos, dir, this.lightType);
+                            if (!this.flagRegionBoundary(i))
+                            {
+                                LightBoundaryCheckHooks.flagOuterSecBoundaryForUpdate(this.curChunk, this.curPos, dir, this.lightType);
+                            }
                             continue;
                         }
 
@@ -284,7 +379,7 @@ public class LightingEngine {
 
                         final MutableBlockPos nPos = this.neighborsPos[i];
 
-                        if (curLight - this.posToOpac(nPos, posToState(nPos, nChunk)) >= nLight) //schedule neighbor for darkening if we possibly light it
+                        if (curLight - stateToOpac(posToState(nPos, nChunk)) >= nLight) //schedule neighbor for darkening if we possibly light it
                         {
                             this.enqueueDarkening(nPos, this.neighborsLongPos[i], nLight, nChunk);
                         }
@@ -304,7 +399,8 @@ public class LightingEngine {
                 }
             }
 
-            this.profiler.endStartSection("brightening");
+            this.endSection();
+            this.startSection("brightening");
 
             for (this.curQueue = this.queuedBrightenings[curLight]; this.nextItem(); )
             {
@@ -313,7 +409,14 @@ public class LightingEngine {
                 if (oldLight == curLight) //only process this if nothing else has happened at this position since scheduling
                 {
                     LightTrackingHooks.trackLightChange(this.curChunk, this.curPos, lightType);
-                    this.world.notifyLightSet(this.curPos);
+                    if (this.region != null)
+                    {
+                        this.region.lightSets.add(this.curData);
+                    }
+                    else
+                    {
+                        this.world.notifyLightSet(this.curPos);
+                    }
 
                     if (curLight > 1)
                     {
@@ -322,10 +425,10 @@ public class LightingEngine {
                 }
             }
 
-            this.profiler.endSection();
+            this.endSection();
         }
 
-        this.profiler.endSection();
+        this.endSection();
 
         // Reset chunk cache
         this.curChunk = null;
@@ -334,6 +437,187 @@ public class LightingEngine {
         this.updating = false;
     }
 
+    private boolean isBudgeted()
+    {
+        return CarpetSettings.newLightUpdateBudget > 0 && !this.world.isRemote && this.region == null;
+    }
+
+    /**
+     * Processes the queued light updates in the lighting phase of the world tick
+     * With rule newLightUpdateBudget, updates left when the budget is used up are deferred to later ticks
+     */
+    public void procLightUpdatesForTick()
+    {
+        if (this.isBudgeted())
+        {
+            this.procLightUpdatesUntil(Util.nanoTime() + CarpetSettings.newLightUpdateBudget * 1000L);
+        }
+        else
+        {
+            this.procLightUpdates();
+        }
+    }
+
+    /**
+     * Processes queued light updates in batches until the deadline is reached. At least one batch is processed
+     *
+     * @param deadline in {@link Util#nanoTime()}
+     * @return true if there are updates left
+     */
+    public boolean procLightUpdatesUntil(final long deadline)
+    {
+        if (!this.isBudgeted())
+        {
+            this.procLightUpdates();
+            return false;
+        }
+
+        if (this.updating)
+        {
+            return true;
+        }
+
+        boolean started = false;
+
+        for (final EnumLightType lightType : EnumLightType.values())
+        {
+            final int type = lightType.ordinal();
+            final PooledLongQueue queue = this.queuedLightUpdates[type];
+
+            while (!queue.isEmpty())
+            {
+                if (started && Util.nanoTime() >= deadline)
+                {
+                    this.rebuildQueuedChunks(type);
+                    return true;
+                }
+
+                started = true;
+
+                for (int i = 0; i < BATCH_SIZE && !queue.isEmpty(); ++i)
+                {
+                    final long longPos = queue.poll();
+                    this.queuedPositions[type].remove(longPos);
+                    this.batchQueue.add(longPos);
+                }
+
+                this.procLightUpdates(lightType, this.batchQueue);
+            }
+
+            this.queuedChunks[type].clear();
+        }
+
+        return false;
+    }
+
+    /**
+     * Makes the light values of the chunk exact before they are read. With rule newLightUpdateBudget, only the queued
+     * updates in the chunk and its neighbors are processed, since light changes don't reach further than 15 blocks
+     *
+     * @param lightType the light type read, or null for both
+     */
+    public void procLightUpdatesAround(final Chunk chunk, @Nullable final EnumLightType lightType)
+    {
+        if (!this.isBudgeted())
+        {
+            if (lightType == null)
+            {
+                this.procLightUpdates();
+            }
+            else
+            {
+                this.procLightUpdates(lightType);
+            }
+            return;
+        }
+
+        for (final EnumLightType type : EnumLightType.values())
+        {
+            if (lightType == null || lightType == type)
+            {
+                this.procLightUpdatesAround(chunk, type);
+            }
+        }
+    }
+
+    private void procLightUpdatesAround(final Chunk chunk, final EnumLightType lightType)
+    {
+        final int type = lightType.ordinal();
+        final LongOpenHashSet chunks = this.queuedChunks[type];
+
+        if (chunks.isEmpty() || this.updating)
+        {
+            return;
+        }
+
+        final long[] area = new long[9];
+        boolean pending = false;
+
+        for (int dx = -1; dx <= 1; ++dx)
+        {
+            for (int dz = -1; dz <= 1; ++dz)
+            {
+                final long key = posToLong((chunk.x + dx) << 4, 0, (chunk.z + dz) << 4) & mChunk;
+                area[(dx + 1) * 3 + dz + 1] = key;
+                pending |= chunks.contains(key);
+            }
+        }
+
+        if (!pending)
+        {
+            return;
+        }
+
+        final PooledLongQueue queue = this.queuedLightUpdates[type];
+
+        for (int i = queue.size(); i > 0; --i)
+        {
+            final long longPos = queue.poll();
+            final long key = longPos & mChunk;
+            boolean inArea = false;
+
+            for (final long areaKey : area)
+            {
+                if (key == areaKey)
+                {
+                    inArea = true;
+                    break;
+                }
+            }
+
+            if (inArea)
+            {
+                this.queuedPositions[type].remove(longPos);
+                this.batchQueue.add(longPos);
+            }
+            else
+            {
+                queue.add(longPos);
+            }
+        }
+
+        for (final long areaKey : area)
+        {
+            chunks.remove(areaKey);
+        }
+
+        this.procLightUpdates(lightType, this.batchQueue);
+    }
+
+    private void rebuildQueuedChunks(final int type)
+    {
+        final PooledLongQueue queue = this.queuedLightUpdates[type];
+        final LongOpenHashSet chunks = this.queuedChunks[type];
+        chunks.clear();
+
+        for (int i = queue.size(); i > 0; --i)
+        {
+            final long longPos = queue.poll();
+            chunks.add(longPos & mChunk);
+            queue.add(longPos);
+        }
+    }
+
     /**
      * Gets data for neighbors of <code>curPos</code> and saves the results into neighbor state data members. If a neighbor can't be accessed/doesn't exist, the corresponding entry in <code>neighborChunks</code> is <code>null</code> - others are not reset
      */
@@ -372,10 +656,10 @@ public class LightingEngine {
 
     private int calcNewLightFromCur()
     {
-        final IBlockState state = this.curToState();
-        final int luminosity = this.curToLuminosity(state);
+        final int properties = getLightProperties(this.curToState());
+        final int luminosity = this.curToLuminosity(properties);
 
-        return this.calcNewLightFromCur(luminosity, luminosity >= MAX_LIGHT - 1 ? 1 : this.curToOpac(state));
+        return this.calcNewLightFromCur(luminosity, luminosity >= MAX_LIGHT - 1 ? 1 : properties >> 4);
     }
 
     private int calcNewLightFromCur(final int luminosity, final int opacity)
@@ -392,7 +676,10 @@ public class LightingEngine {
         {
             if (this.neighborsChunk[i] == null)
             {
-                LightBoundaryCheckHooks.flagInnerSecBoundaryForUpdate(this.curChunk, this.curPos, this.lightType);
+                if (!this.flagRegionBoundary(i))
+                {
+                    LightBoundaryCheckHooks.flagInnerSecBoundaryForUpdate(this.curChunk, this.curPos, this.lightType);
+                }
                 continue;
             }
 
@@ -418,11 +705,14 @@ public class LightingEngine {
 
             if (nChunk == null)
             {
-                LightBoundaryCheckHooks.flagOuterSecBoundaryForUpdate(this.curChunk, this.curPos, dir, this.lightType);
+                if (!this.flagRegionBoundary(i))
+                {
+                    LightBoundaryCheckHooks.flagOuterSecBoundaryForUpdate(this.curChunk, this.curPos, dir, this.lightType);
+                }
                 continue;
             }
 
-            final int newLight = curLight - this.posToOpac(nPos, nChunk.getBlockState(nPos));
+            final int newLight = curLight - stateToOpac(nChunk.getBlockState(nPos));
 
             if (newLight > this.neighborsLight[i])
             {
@@ -516,7 +806,17 @@ public class LightingEngine {
 
     private int posToCachedLight(final MutableBlockPos pos, final Chunk chunk)
     {
-        return chunk.getLight(this.lightType, pos, this.world.dimension.hasSkyLight());
+        final ChunkSection section = chunk.getSections()[pos.getY() >> 4];
+
+        //read the nibble array of the section directly, Chunk.getLight is only needed for the special cases
+        if (section != Chunk.EMPTY_SECTION && (this.lightType == EnumLightType.BLOCK || this.hasSkyLight))
+        {
+            final NibbleArray light = this.lightType == EnumLightType.SKY ? section.getSkyLight() : section.getBlockLight();
+            final int index = (pos.getY() & 15) << 8 | (pos.getZ() & 15) << 4 | (pos.getX() & 15);
+            return light.getData()[index >> 1] >> ((index & 1) << 2) & 15;
+        }
+
+        return chunk.getLight(this.lightType, pos, this.hasSkyLight);
     }
 
     private int curToCachedLight()
@@ -526,25 +826,22 @@ public class LightingEngine {
 
     /**
      * Calculates the luminosity for <code>curPos</code>, taking into account <code>lightType</code>
+     *
+     * @param properties the light properties of the state at <code>curPos</code>, see {@link #getLightProperties(IBlockState)}
      */
-    private int curToLuminosity(final IBlockState state)
+    private int curToLuminosity(final int properties)
     {
         if (this.lightType == EnumLightType.SKY)
         {
             return this.curChunk.canSeeSky(this.curPos) ? EnumLightType.SKY.defaultLightValue : 0;
         }
 
-        return MathHelper.clamp(LightUtils.getLightValue(state, this.world, this.curPos), 0, MAX_LIGHT);
-    }
-
-    private int curToOpac(final IBlockState state)
-    {
-        return this.posToOpac(this.curPos, state);
+        return properties & 15;
     }
 
-    private int posToOpac(final BlockPos pos, final IBlockState state)
+    private static int stateToOpac(final IBlockState state)
     {
-        return MathHelper.clamp(state.getOpacity(this.world, pos), 1, MAX_LIGHT);
+        return getLightProperties(state) >> 4;
     }
 
     private IBlockState curToState()
@@ -559,6 +856,10 @@ public class LightingEngine {
 
     private Chunk posToChunk(final BlockPos pos)
     {
+        if (this.region != null)
+        {
+            return this.region.getChunk(pos.getX() >> 4, pos.getZ() >> 4);
+        }
         return this.world.getChunkProvider().getChunk(pos.getX() >> 4, pos.getZ() >> 4, false, false);
     }
 
@@ -567,6 +868,293 @@ public class LightingEngine {
         return this.posToChunk(this.curPos);
     }
 
+    private void startSection(final String name)
+    {
+        if (this.profiler != null)
+        {
+            this.profiler.startSection(name);
+        }
+    }
+
+    private void endSection()
+    {
+        if (this.profiler != null)
+        {
+            this.profiler.endSection();
+        }
+    }
+
+    //TISCM newLight light property table
+    //Opacity and luminosity of the block states are looked up in a table indexed by block state id instead of being computed
+    //from the state for every visited position. Neither depends on the position for the blocks of the game, so the table is
+    //built with a reader containing nothing. It also keeps region workers from reading the world
+
+    private static final IBlockReader EMPTY_READER = new IBlockReader()
+    {
+        @Nullable
+        @Override
+        public TileEntity getTileEntity(final BlockPos pos)
+        {
+            return null;
+        }
+
+        @Override
+        public IBlockState getBlockState(final BlockPos pos)
+        {
+            return Blocks.AIR.getDefaultState();
+        }
+
+        @Override
+        public IFluidState getFluidState(final BlockPos pos)
+        {
+            return Fluids.EMPTY.getDefaultState();
+        }
+    };
+
+    //Layout of bytes: [opacity(4)] [luminosity(4)], opacity clamped to at least 1
+    private static volatile byte[] lightProperties = null;
+
+    private static synchronized byte[] buildLightProperties()
+    {
+        if (lightProperties == null)
+        {
+            int size = 0;
+
+            for (final IBlockState state : Block.BLOCK_STATE_IDS)
+            {
+                size = Math.max(size, Block.BLOCK_STATE_IDS.get(state) + 1);
+            }
+
+            final byte[] properties = new byte[size];
+
+            for (final IBlockState state : Block.BLOCK_STATE_IDS)
+            {
+                final int opacity = MathHelper.clamp(state.getOpacity(EMPTY_READER, BlockPos.ORIGIN), 1, MAX_LIGHT);
+                final int luminosity = MathHelper.clamp(state.getLightValue(), 0, MAX_LIGHT);
+                properties[Block.BLOCK_STATE_IDS.get(state)] = (byte) (opacity << 4 | luminosity);
+            }
+
+            lightProperties = properties;
+        }
+
+        return lightProperties;
+    }
+
+    private static int getLightProperties(final IBlockState state)
+    {
+        byte[] properties = lightProperties;
+
+        if (properties == null)
+        {
+            properties = buildLightProperties();
+        }
+
+        return properties[Block.BLOCK_STATE_IDS.get(state)] & 0xFF;
+    }
+
+    //TISCM parallel newLight code
+    //Queued updates are partitioned into regions, and every region is relit by a worker which reads and writes nothing outside of it.
+    //Neighbors outside the region are treated as unloaded, and both sides of such a boundary are checked again on the calling thread
+    //afterwards, the same way as any scheduled light update, so the result stays consistent across regions
+
+    private static class LightRegion
+    {
+        private final long key;
+        // the chunk with the lowest coordinates in the region
+        private final int chunkX;
+        private final int chunkZ;
+        // fetched on the calling thread, null for unloaded chunks
+        private final Chunk[] chunks = new Chunk[REGION_CHUNKS * REGION_CHUNKS];
+        private final LongArrayList updates = new LongArrayList();
+        // filled by the worker, processed on the calling thread
+        private final LongArrayList boundaryChecks = new LongArrayList();
+        private final LongArrayList lightSets = new LongArrayList();
+
+        private LightRegion(final long longPos, final World world)
+        {
+            this.key = longPos & mRegion;
+            final MutableBlockPos pos = longToPos(new MutableBlockPos(), longPos);
+            this.chunkX = pos.getX() >> REGION_SHIFT << (REGION_SHIFT - 4);
+            this.chunkZ = pos.getZ() >> REGION_SHIFT << (REGION_SHIFT - 4);
+            for (int dx = 0; dx < REGION_CHUNKS; ++dx)
+            {
+                for (int dz = 0; dz < REGION_CHUNKS; ++dz)
+                {
+                    this.chunks[dx * REGION_CHUNKS + dz] = world.getChunkProvider().getChunk(this.chunkX + dx, this.chunkZ + dz, false, false);
+                }
+            }
+        }
+
+        private boolean contains(final long longPos)
+        {
+            return (longPos & mRegion) == this.key;
+        }
+
+        @Nullable
+        private Chunk getChunk(final int x, final int z)
+        {
+            final int dx = x - this.chunkX;
+            final int dz = z - this.chunkZ;
+            if (dx < 0 || dx >= REGION_CHUNKS || dz < 0 || dz >= REGION_CHUNKS)
+            {
+                return null;
+            }
+            return this.chunks[dx * REGION_CHUNKS + dz];
+        }
+    }
+
+    /**
+     * Called by workers for a neighbor of <code>curPos</code> without chunk
+     *
+     * @return true if it's because the neighbor is outside of the region, and both positions have been scheduled for a check
+     */
+    private boolean flagRegionBoundary(final int neighbor)
+    {
+        final long nLongPos = this.neighborsLongPos[neighbor];
+
+        if (this.region == null || (nLongPos & yCheck) != 0 || this.region.contains(nLongPos))
+        {
+            return false;
+        }
+
+        this.region.boundaryChecks.add(this.curData & mPos);
+        this.region.boundaryChecks.add(nLongPos);
+        return true;
+    }
+
+    // shared by all worlds, which might be relit at the same time with parallelDimensionTicking
+    private static synchronized ExecutorService getExecutor(final int threads)
+    {
+        if (executor == null || executorThreads != threads)
+        {
+            if (executor != null)
+            {
+                executor.shutdown();
+            }
+            executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "Lighting Worker #" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            executorThreads = threads;
+        }
+        return executor;
+    }
+
+    public static synchronized void shutdown()
+    {
+        if (executor != null)
+        {
+            executor.shutdown();
+            executor = null;
+            executorThreads = 0;
+        }
+    }
+
+    /**
+     * Relights the regions of the queued updates in parallel and waits for them
+     * The updates crossing region boundaries are put back into the queue
+     */
+    private void procRegionsInParallel(final EnumLightType lightType, final PooledLongQueue queue)
+    {
+        final Long2ObjectOpenHashMap<LightRegion> regions = new Long2ObjectOpenHashMap<>();
+
+        while (!queue.isEmpty())
+        {
+            final long longPos = queue.poll();
+            LightRegion region = regions.get(longPos & mRegion);
+
+            if (region == null)
+            {
+                region = new LightRegion(longPos, this.world);
+                regions.put(region.key, region);
+            }
+
+            region.updates.add(longPos);
+        }
+
+        final Queue<LightRegion> pending = new ConcurrentLinkedQueue<>(regions.values());
+        final int threads = Math.min(CarpetSettings.parallelNewLightThreads, regions.size());
+        final List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < threads; ++i)
+        {
+            if (i == this.workerEngines.size())
+            {
+                this.workerEngines.add(new LightingEngine(this.world, true));
+            }
+
+            final LightingEngine engine = this.workerEngines.get(i);
+            futures.add(getExecutor(CarpetSettings.parallelNewLightThreads).submit(() -> engine.procRegions(lightType, pending)));
+        }
+
+        ReportedException exception = null;
+
+        for (final Future<?> future : futures)
+        {
+            try
+            {
+                future.get();
+            }
+            catch (ExecutionException e)
+            {
+                if (exception == null)
+                {
+                    exception = e.getCause() instanceof ReportedException ?
+                            (ReportedException) e.getCause() :
+                            new ReportedException(CrashReport.makeCrashReport(e.getCause(), "Exception relighting in parallel"));
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (exception != null)
+        {
+            throw exception;
+        }
+
+        for (final LightRegion region : regions.values())
+        {
+            for (int i = 0; i < region.lightSets.size(); ++i)
+            {
+                this.world.notifyLightSet(longToPos(this.curPos, region.lightSets.getLong(i)));
+            }
+
+            for (int i = 0; i < region.boundaryChecks.size(); ++i)
+            {
+                queue.add(region.boundaryChecks.getLong(i));
+            }
+        }
+    }
+
+    private void procRegions(final EnumLightType lightType, final Queue<LightRegion> regions)
+    {
+        LightRegion region;
+
+        while ((region = regions.poll()) != null)
+        {
+            this.region = region;
+            final PooledLongQueue queue = this.queuedLightUpdates[lightType.ordinal()];
+
+            for (int i = 0; i < region.updates.size(); ++i)
+            {
+                queue.add(region.updates.getLong(i));
+            }
+
+            try
+            {
+                this.procLightUpdates(lightType);
+            }
+            finally
+            {
+                this.region = null;
+            }
+        }
+    }
+
     //PooledLongQueue code
     //Implement own queue with pooled segments to reduce allocation costs and reduce idle memory footprint
 
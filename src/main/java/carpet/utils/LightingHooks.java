@@ -35,6 +35,7 @@ public class LightingHooks
 
     public static void onUnload(final World world, final Chunk chunk)
     {
+        AsyncLightInit.onUnload(chunk);
         world.getLightingEngine().procLightUpdates();
         LightTrackingHooks.onUnload(world, chunk);
         LightBoundaryCheckHooks.onUnload(world, chunk);
@@ -70,7 +70,8 @@ public class SpawnReporter
     }
 
     public static void registerSpawn(EntityLiving el, String type, String mob, BlockPos pos) { registerSpawn(el, type, mob, pos, 1L);}
-    public static void registerSpawn(EntityLiving el, String type, String mob, BlockPos pos, long value)
+    // synchronized since spawn_stats and spawned_mobs are shared between dimensions, which might be ticked in parallel
+    public static synchronized void registerSpawn(EntityLiving el, String type, String mob, BlockPos pos, long value)
     {
         if (lower_spawning_limit != null)
         {
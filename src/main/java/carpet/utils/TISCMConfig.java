@@ -5,6 +5,7 @@ package carpet.utils;
  * But still, here's a code level configurable optimization switches
  *
  * It's also the switch panel of other bundled mods
+ * Non-final switches can be changed at runtime with carpet rules
  *
  * See also: {@link me.jellysquid.mods.lithium.LithiumConfig}
  */
@@ -22,7 +23,8 @@ public class TISCMConfig
 	// TISCM cache item burn times
 	public static final boolean CACHE_ITEM_BURN_TIMES             = TISCM_OPTIMIZATION_ENABLE && true;
 	// TISCM cache TileEntity Serialization
-	public static final boolean CACHE_TILE_ENTITY_SERIALIZATION   = TISCM_OPTIMIZATION_ENABLE && true;
+	// runtime switchable, rule cacheTileEntitySerialization. The caches are filled anyway so they are never stale
+	public static boolean CACHE_TILE_ENTITY_SERIALIZATION         = TISCM_OPTIMIZATION_ENABLE && true;
 
 	// ========== Mods ==========
 	// https://github.com/EngineHub/WorldEdit
@@ -0,0 +1,234 @@
+package carpet.utils;
+
+import carpet.helpers.TickSpeed;
+import carpet.settings.CarpetSettings;
+import net.minecraft.util.text.ITextComponent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * An always-on ring buffer of the per-section timings of the last {@link #CAPACITY} ticks
+ * fed by {@link CarpetProfiler} at the end of every tick
+ *
+ * Sections of all dimensions are merged into one column per section
+ * When a tick goes above rule lagSpikeCaptureThreshold, the whole buffer is copied and kept until it's cleared,
+ * so an intermittent lag spike can be inspected with /profile spike afterwards
+ */
+public class TickHealthMonitor
+{
+    // enough for 60 seconds even with a tick rate of 60 TPS
+    public static final int CAPACITY = 4096;
+    private static final int TICK = 0;
+    private static final int GENERAL_BASE = 1;
+    private static final int SECTION_BASE = GENERAL_BASE + CarpetProfiler.GENERAL_SECTIONS.length;
+    private static final int COLUMNS = SECTION_BASE + CarpetProfiler.SECTIONS.length;
+
+    private static final TickHealthMonitor instance = new TickHealthMonitor();
+
+    private final long[] totals = new long[CarpetProfiler.GENERAL_SECTIONS.length + CarpetProfiler.DIMENSIONS.length * CarpetProfiler.SECTIONS.length];
+    private final long[] lastTotals = new long[this.totals.length];
+    private final Buffer live = new Buffer();
+    private Buffer captured = null;
+    private boolean initialized = false;
+
+    private static class Buffer
+    {
+        private final long[] timings = new long[CAPACITY * COLUMNS];
+        // System.nanoTime() at the end of the tick
+        private final long[] timestamps = new long[CAPACITY];
+        private final int[] tickCounters = new int[CAPACITY];
+        private int head = 0;  // next index to write
+        private int size = 0;
+
+        private Buffer copy()
+        {
+            Buffer buffer = new Buffer();
+            System.arraycopy(this.timings, 0, buffer.timings, 0, this.timings.length);
+            System.arraycopy(this.timestamps, 0, buffer.timestamps, 0, this.timestamps.length);
+            System.arraycopy(this.tickCounters, 0, buffer.tickCounters, 0, this.tickCounters.length);
+            buffer.head = this.head;
+            buffer.size = this.size;
+            return buffer;
+        }
+
+        // i-th latest tick, 0 is the latest one
+        private int index(int i)
+        {
+            return (this.head - 1 - i + CAPACITY) % CAPACITY;
+        }
+
+        private int countWithin(long windowNanos)
+        {
+            if (this.size == 0)
+            {
+                return 0;
+            }
+            long latest = this.timestamps[this.index(0)];
+            int count = 0;
+            while (count < this.size && latest - this.timestamps[this.index(count)] < windowNanos)
+            {
+                count++;
+            }
+            return count;
+        }
+    }
+
+    public static TickHealthMonitor getInstance()
+    {
+        return instance;
+    }
+
+    /**
+     * Called on the server thread at the end of every tick
+     */
+    public void onTickEnd(int tickCounter, long tickTime)
+    {
+        CarpetProfiler.fill_section_times(this.totals);
+        if (!this.initialized)
+        {
+            // the totals before the first tick are unknown, skip it
+            System.arraycopy(this.totals, 0, this.lastTotals, 0, this.totals.length);
+            this.initialized = true;
+            return;
+        }
+
+        Buffer buffer = this.live;
+        int base = buffer.head * COLUMNS;
+        Arrays.fill(buffer.timings, base, base + COLUMNS, 0L);
+        buffer.timings[base + TICK] = tickTime;
+        for (int i = 0; i < CarpetProfiler.GENERAL_SECTIONS.length; i++)
+        {
+            buffer.timings[base + GENERAL_BASE + i] = this.totals[i] - this.lastTotals[i];
+        }
+        for (int dimension = 0; dimension < CarpetProfiler.DIMENSIONS.length; dimension++)
+        {
+            for (int section = 0; section < CarpetProfiler.SECTIONS.length; section++)
+            {
+                int id = CarpetProfiler.get_section_id(dimension, section);
+                buffer.timings[base + SECTION_BASE + section] += this.totals[id] - this.lastTotals[id];
+            }
+        }
+        System.arraycopy(this.totals, 0, this.lastTotals, 0, this.totals.length);
+
+        buffer.timestamps[buffer.head] = System.nanoTime();
+        buffer.tickCounters[buffer.head] = tickCounter;
+        buffer.head = (buffer.head + 1) % CAPACITY;
+        buffer.size = Math.min(buffer.size + 1, CAPACITY);
+
+        double threshold = CarpetSettings.lagSpikeCaptureThreshold;
+        if (threshold > 0 && this.captured == null && tickTime > threshold * 1000000.0D)
+        {
+            this.captured = buffer.copy();
+            CarpetSettings.LOG.warn(String.format(Locale.US, "Lag spike captured at tick %d: %.1f ms. Use /profile spike for details", tickCounter, tickTime / 1000000.0D));
+        }
+    }
+
+    public boolean hasCapturedSpike()
+    {
+        return this.captured != null;
+    }
+
+    public void clearCapturedSpike()
+    {
+        this.captured = null;
+    }
+
+    private static String getColumnName(int column)
+    {
+        if (column == TICK)
+        {
+            return "Tick";
+        }
+        if (column < SECTION_BASE)
+        {
+            return CarpetProfiler.GENERAL_SECTIONS[column - GENERAL_BASE];
+        }
+        return CarpetProfiler.SECTIONS[column - SECTION_BASE];
+    }
+
+    // value in milliseconds at the given fraction of the sorted array, nearest rank
+    private static double percentile(long[] sorted, double fraction)
+    {
+        int rank = (int)Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank))] / 1000000.0D;
+    }
+
+    // skips the latest `skip` ticks in the buffer
+    private static List<ITextComponent> report(Buffer buffer, int skip, int count)
+    {
+        List<ITextComponent> lines = new ArrayList<>();
+        lines.add(Messenger.c(String.format(Locale.US, "w Last %d ticks, p50 / p95 / p99 / max in ms:", count)));
+        long[] values = new long[count];
+        for (int column = 0; column < COLUMNS; column++)
+        {
+            for (int i = 0; i < count; i++)
+            {
+                values[i] = buffer.timings[buffer.index(skip + i) * COLUMNS + column];
+            }
+            Arrays.sort(values);
+            double max = values[count - 1] / 1000000.0D;
+            if (column != TICK && max < 0.01)
+            {
+                continue;
+            }
+            double p99 = percentile(values, 0.99);
+            lines.add(Messenger.c(
+                    String.format("%s %s%s: ", column == TICK ? "w" : "g", column == TICK ? "" : " - ", getColumnName(column)),
+                    String.format(Locale.US, "w %.2f / %.2f / ", percentile(values, 0.50), percentile(values, 0.95)),
+                    String.format(Locale.US, "%s %.2f", Messenger.heatmap_color(p99, TickSpeed.mspt), p99),
+                    "w  / ",
+                    String.format(Locale.US, "%s %.2f", Messenger.heatmap_color(max, TickSpeed.mspt), max)
+            ));
+        }
+        return lines;
+    }
+
+    /**
+     * Percentiles of every section of the ticks which ended in the last given seconds
+     */
+    public List<ITextComponent> reportWindow(int seconds)
+    {
+        int count = this.live.countWithin(seconds * 1000000000L);
+        if (count == 0)
+        {
+            return Collections.singletonList(Messenger.c("r No tick has been recorded yet"));
+        }
+        List<ITextComponent> lines = new ArrayList<>();
+        lines.add(Messenger.c(String.format("w Tick health in the last %ds", seconds)));
+        lines.addAll(report(this.live, 0, count));
+        return lines;
+    }
+
+    /**
+     * Timings of the captured lag spike tick, with the percentiles of the ticks right before it for comparison
+     */
+    public List<ITextComponent> reportCapturedSpike()
+    {
+        Buffer buffer = this.captured;
+        if (buffer == null)
+        {
+            return Collections.singletonList(Messenger.c(String.format(Locale.US, "w No lag spike above %.1f ms has been captured", CarpetSettings.lagSpikeCaptureThreshold)));
+        }
+        List<ITextComponent> lines = new ArrayList<>();
+        int spike = buffer.index(0);
+        lines.add(Messenger.c(String.format(Locale.US, "w Lag spike at tick %d: ", buffer.tickCounters[spike]), String.format(Locale.US, "r %.2f ms", buffer.timings[spike * COLUMNS + TICK] / 1000000.0D)));
+        for (int column = GENERAL_BASE; column < COLUMNS; column++)
+        {
+            double amount = buffer.timings[spike * COLUMNS + column] / 1000000.0D;
+            if (amount > 0.01)
+            {
+                lines.add(Messenger.c(String.format("g  - %s: ", getColumnName(column)), String.format(Locale.US, "%s %.2f ms", Messenger.heatmap_color(amount, TickSpeed.mspt), amount)));
+            }
+        }
+        if (buffer.size > 1)
+        {
+            lines.add(Messenger.c("w Ticks before the spike:"));
+            lines.addAll(report(buffer, 1, buffer.size - 1));
+        }
+        return lines;
+    }
+}
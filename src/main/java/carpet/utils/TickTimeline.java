@@ -0,0 +1,315 @@
+package carpet.utils;
+
+import carpet.logging.microtiming.enums.TickStage;
+import carpet.settings.CarpetSettings;
+import com.google.gson.stream.JsonWriter;
+import net.minecraft.world.World;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An always-on recorder of the phase enter / exit events of recent ticks, which can be dumped as a
+ * Chrome trace event file for https://ui.perfetto.dev or chrome://tracing with /profile timeline
+ *
+ * Events are written as two longs, the System.nanoTime() timestamp and the packed event, into a ring buffer owned
+ * by the recording thread, so recording allocates nothing and needs no lock. Fed by {@link CarpetProfiler}
+ * sections and ticks, and by the tick stages of {@link carpet.logging.microtiming.MicroTimingLoggerManager}
+ * The buffers of finished threads, like the workers of a rebuilt thread pool, are dropped at the end of the next tick
+ */
+public class TickTimeline
+{
+    // events per thread, 2 MB per thread and about half a minute of ticks with every dimension loaded
+    public static final int CAPACITY = 1 << 17;
+
+    private static final int SECTION_BEGIN = 1;
+    private static final int SECTION_END = 2;
+    // a pair of events written at once, for sections which might be interleaved with the current section
+    private static final int SPAN_BEGIN = 3;
+    private static final int SPAN_END = 4;
+    private static final int TICK_BEGIN = 5;
+    private static final int TICK_END = 6;
+    private static final int STAGE = 7;
+
+    // stage tracks, dimension indexes from CarpetProfiler.get_dimension_index, then the stages outside worlds
+    private static final int SERVER_TRACK = CarpetProfiler.DIMENSIONS.length;
+    // tids of the stage tracks in the trace, thread tids start right after them
+    private static final int STAGE_TID_BASE = 1;
+    private static final int THREAD_TID_BASE = STAGE_TID_BASE + SERVER_TRACK + 1;
+
+    private static class Recorder
+    {
+        private final Thread owner = Thread.currentThread();
+        private final String threadName = this.owner.getName();
+        private final long[] timestamps = new long[CAPACITY];
+        private final long[] events = new long[CAPACITY];
+        // events written so far. Only the owner writes it, with an ordered write after the event,
+        // so a thread reading it sees the events written before
+        private final AtomicLong written = new AtomicLong();
+
+        private void record(long time, int type, int track, int name, int arg)
+        {
+            long written = this.written.get();
+            int head = (int)(written % CAPACITY);
+            this.timestamps[head] = time;
+            this.events[head] = (long)type << 56 | (long)(track & 0xFF) << 48 | (long)(name & 0xFFFF) << 32 | (arg & 0xFFFFFFFFL);
+            this.written.lazySet(written + 1);
+        }
+    }
+
+    private static final List<Recorder> recorders = new CopyOnWriteArrayList<>();
+    private static final ThreadLocal<Recorder> thread_recorder = ThreadLocal.withInitial(() -> {
+        Recorder recorder = new Recorder();
+        recorders.add(recorder);
+        return recorder;
+    });
+
+    private static int type(long event)
+    {
+        return (int)(event >>> 56);
+    }
+
+    private static int track(long event)
+    {
+        return (int)(event >>> 48) & 0xFF;
+    }
+
+    private static int name(long event)
+    {
+        return (int)(event >>> 32) & 0xFFFF;
+    }
+
+    private static int arg(long event)
+    {
+        return (int)event;
+    }
+
+    public static void onSectionSwitch(long time, int endedSection, int startedSection)
+    {
+        Recorder recorder = thread_recorder.get();
+        if (endedSection != -1)
+        {
+            recorder.record(time, SECTION_END, 0, endedSection, 0);
+        }
+        if (startedSection != -1)
+        {
+            recorder.record(time, SECTION_BEGIN, 0, startedSection, 0);
+        }
+    }
+
+    public static void onSpan(long start, long end, int section)
+    {
+        Recorder recorder = thread_recorder.get();
+        recorder.record(start, SPAN_BEGIN, 0, section, 0);
+        recorder.record(end, SPAN_END, 0, section, 0);
+    }
+
+    public static void onTickBegin(long time, int tickCounter)
+    {
+        thread_recorder.get().record(time, TICK_BEGIN, 0, 0, tickCounter);
+    }
+
+    /**
+     * Called on the server thread, also drops the recorders of finished threads
+     */
+    public static void onTickEnd(long time, int tickCounter)
+    {
+        thread_recorder.get().record(time, TICK_END, 0, 0, tickCounter);
+        for (Recorder recorder : recorders)
+        {
+            if (!recorder.owner.isAlive())
+            {
+                recorders.remove(recorder);
+            }
+        }
+    }
+
+    /**
+     * @param world the world of the stage, or null for stages outside worlds. Client worlds are ignored
+     */
+    public static void onTickStage(World world, TickStage stage)
+    {
+        if (world != null && world.isRemote)
+        {
+            return;
+        }
+        int track = world == null ? SERVER_TRACK : CarpetProfiler.get_dimension_index(world.dimension.getType().getId());
+        thread_recorder.get().record(System.nanoTime(), STAGE, track, stage.ordinal(), 0);
+    }
+
+    private static String getTrackName(int track)
+    {
+        return track == SERVER_TRACK ? "Server stages" : CarpetProfiler.DIMENSIONS[track] + " stages";
+    }
+
+    private static class StageEvent
+    {
+        private final long time;
+        private final long event;
+
+        private StageEvent(long time, long event)
+        {
+            this.time = time;
+            this.event = event;
+        }
+    }
+
+    /**
+     * Writes the events of the last given seconds as a Chrome trace event file
+     * Call it on the server thread between ticks. Threads outside the tick, like the light workers, might still be
+     * recording: their events written after the dump started are left out, and their oldest events might be overwritten
+     *
+     * @return the number of events written
+     */
+    public static int dump(File file, int seconds) throws IOException
+    {
+        long since = System.nanoTime() - seconds * 1000000000L;
+        int count = 0;
+        Files.createDirectories(file.getParentFile().toPath());
+        try (JsonWriter writer = new JsonWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)))
+        {
+            writer.beginObject();
+            writer.name("displayTimeUnit").value("ms");
+            writer.name("otherData").beginObject();
+            writer.name("version").value(CarpetSettings.carpetVersion);
+            writer.endObject();
+            writer.name("traceEvents").beginArray();
+
+            for (int track = 0; track <= SERVER_TRACK; track++)
+            {
+                writeThreadName(writer, STAGE_TID_BASE + track, getTrackName(track));
+            }
+
+            List<StageEvent> stages = new ArrayList<>();
+            for (int i = 0; i < recorders.size(); i++)
+            {
+                Recorder recorder = recorders.get(i);
+                int tid = THREAD_TID_BASE + i;
+                writeThreadName(writer, tid, recorder.threadName);
+                long written = recorder.written.get();
+                int size = (int)Math.min(written, CAPACITY);
+                // index of the oldest event
+                int first = (int)((written - size) % CAPACITY);
+                // B / E events must be nested, ends of sections which began before the dumped range are skipped
+                int depth = 0;
+                for (int j = 0; j < size; j++)
+                {
+                    int index = (first + j) % CAPACITY;
+                    long time = recorder.timestamps[index];
+                    long event = recorder.events[index];
+                    int type = type(event);
+                    if (time < since && type != SPAN_BEGIN)
+                    {
+                        continue;
+                    }
+                    switch (type)
+                    {
+                        case SECTION_BEGIN:
+                            writeEvent(writer, "B", CarpetProfiler.get_section_name(name(event)), tid, time);
+                            writer.endObject();
+                            depth++;
+                            break;
+                        case SECTION_END:
+                            if (depth > 0)
+                            {
+                                writeEvent(writer, "E", CarpetProfiler.get_section_name(name(event)), tid, time);
+                                writer.endObject();
+                                depth--;
+                            }
+                            break;
+                        case SPAN_BEGIN:
+                            // always followed by its SPAN_END
+                            int endIndex = (first + ++j) % CAPACITY;
+                            if (j < size && recorder.timestamps[endIndex] >= since)
+                            {
+                                writeEvent(writer, "X", CarpetProfiler.get_section_name(name(event)), tid, time);
+                                writer.name("dur").jsonValue(toMicros(recorder.timestamps[endIndex] - time));
+                                writer.endObject();
+                            }
+                            break;
+                        case TICK_BEGIN:
+                            writeEvent(writer, "B", "Tick", tid, time);
+                            writer.name("args").beginObject().name("tick").value(arg(event)).endObject();
+                            writer.endObject();
+                            depth++;
+                            break;
+                        case TICK_END:
+                            if (depth > 0)
+                            {
+                                writeEvent(writer, "E", "Tick", tid, time);
+                                writer.endObject();
+                                depth--;
+                            }
+                            stages.add(new StageEvent(time, event));
+                            break;
+                        case STAGE:
+                            stages.add(new StageEvent(time, event));
+                            break;
+                    }
+                    count++;
+                }
+            }
+
+            // a stage lasts until the next stage of the same track or the end of the tick
+            stages.sort((a, b) -> Long.compare(a.time, b.time));
+            StageEvent[] open = new StageEvent[SERVER_TRACK + 1];
+            for (StageEvent stage : stages)
+            {
+                boolean tickEnd = type(stage.event) == TICK_END;
+                for (int track = 0; track < open.length; track++)
+                {
+                    if (open[track] != null && (tickEnd || track == track(stage.event)))
+                    {
+                        writeEvent(writer, "X", TickStage.values()[name(open[track].event)].getName(), STAGE_TID_BASE + track, open[track].time);
+                        writer.name("dur").jsonValue(toMicros(stage.time - open[track].time));
+                        writer.endObject();
+                        open[track] = null;
+                    }
+                }
+                if (!tickEnd)
+                {
+                    open[track(stage.event)] = stage;
+                }
+            }
+
+            writer.endArray();
+            writer.endObject();
+        }
+        return count;
+    }
+
+    // timestamps are in microseconds in the trace event format, fractions keep the nanoseconds
+    private static String toMicros(long nanos)
+    {
+        return String.format(Locale.US, "%.3f", nanos / 1000.0D);
+    }
+
+    // leaves the event object open for extra fields
+    private static void writeEvent(JsonWriter writer, String phase, String name, int tid, long time) throws IOException
+    {
+        writer.beginObject();
+        writer.name("name").value(name);
+        writer.name("ph").value(phase);
+        writer.name("pid").value(1);
+        writer.name("tid").value(tid);
+        writer.name("ts").jsonValue(toMicros(time));
+    }
+
+    private static void writeThreadName(JsonWriter writer, int tid, String name) throws IOException
+    {
+        writer.beginObject();
+        writer.name("name").value("thread_name");
+        writer.name("ph").value("M");
+        writer.name("pid").value(1);
+        writer.name("tid").value(tid);
+        writer.name("args").beginObject().name("name").value(name).endObject();
+        writer.endObject();
+    }
+}
@@ -30,20 +30,7 @@ public class PortalSearcherSuperCache extends PortalSearcherAbstract {
 
                 // use vanilla method and check portals
                 if (!handler.isMarked(cPos)) {
-                    handler.markChunk(cPos);
-                    for (int dx = 0; dx < 16; ++dx) {
-                        for (int dz = 0; dz < 16; ++dz) {
-                            for (int y = this.worldIn.getActualHeight() - 1; y >= 0; --y) {
-                                BlockPos bPos = new BlockPos(
-                                        (cx << 4) + dx,
-                                        y,
-                                        (cz << 4) + dz);
-                                if (this.worldIn.getBlockState(bPos).getBlock() == BLOCK_NETHER_PORTAL) {
-                                    handler.addPortal(bPos);
-                                }
-                            }
-                        }
-                    }
+                    handler.scanChunk(this.worldIn, this.worldIn.getChunk(cx, cz));
                 } else { // fix chunkloading issue
                     this.worldIn.getChunk(cPos.asBlockPos());
                 }
@@ -4,15 +4,25 @@ import carpet.settings.CarpetSettings;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.Util;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.dimension.DimensionType;
 
 import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 
 public class SuperCacheHandler {
+    // same as the search radius of PortalSearcherSuperCache
+    private static final int WARM_UP_RADIUS = 8;
+
     private Map<ChunkPos, Set<BlockPos>> chunkPortalMapping;
 
     private static SuperCacheHandler HANDLER_OVERWORLD = new SuperCacheHandler();
@@ -93,6 +103,84 @@ public class SuperCacheHandler {
         return iterable == null ? Collections::emptyIterator : iterable;
     }
 
+    /**
+     * Marks the chunk and adds all nether portal blocks inside it
+     * Does nothing if the chunk has been marked already
+     */
+    public void scanChunk(World worldIn, Chunk chunk) {
+        if (!markChunk(chunk.getPos())) {
+            return;
+        }
+        int height = worldIn.getActualHeight();
+        for (ChunkSection section : chunk.getSections()) {
+            if (section == Chunk.EMPTY_SECTION || section.isEmpty() || section.getYLocation() >= height) {
+                continue;
+            }
+            for (int y = 0; y < 16; ++y) {
+                for (int z = 0; z < 16; ++z) {
+                    for (int x = 0; x < 16; ++x) {
+                        if (section.get(x, y, z).getBlock() == PortalSearcherAbstract.BLOCK_NETHER_PORTAL) {
+                            addPortal(new BlockPos((chunk.x << 4) + x, section.getYLocation() + y, (chunk.z << 4) + z));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // returns true if the deadline is reached before all loaded chunks around are scanned
+    private boolean warmUpAround(World worldIn, int chunkX, int chunkZ, long deadline) {
+        for (int cx = chunkX - WARM_UP_RADIUS; cx <= chunkX + WARM_UP_RADIUS; ++cx) {
+            for (int cz = chunkZ - WARM_UP_RADIUS; cz <= chunkZ + WARM_UP_RADIUS; ++cz) {
+                if (isMarked(new ChunkPos(cx, cz))) {
+                    continue;
+                }
+                // don't load chunks for it
+                Chunk chunk = worldIn.getChunkProvider().getChunk(cx, cz, false, false);
+                if (chunk != null) {
+                    if (Util.nanoTime() >= deadline) {
+                        return true;
+                    }
+                    scanChunk(worldIn, chunk);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Scans the loaded chunks where the next portal search of a player will most likely happen,
+     * i.e. around the player and around the corresponding position in the other dimension
+     * Used as an idle task between ticks
+     *
+     * @return true if there are still chunks to scan
+     */
+    public static boolean warmUp(MinecraftServer server, long deadline) {
+        if (!CarpetSettings.portalSuperCache) {
+            return false;
+        }
+        World overworld = server.getWorld(DimensionType.OVERWORLD);
+        World nether = server.getWorld(DimensionType.NETHER);
+        for (EntityPlayerMP player : server.getPlayerList().getPlayers()) {
+            int x = MathHelper.floor(player.posX);
+            int z = MathHelper.floor(player.posZ);
+            boolean unfinished;
+            if (player.dimension == DimensionType.OVERWORLD) {
+                unfinished = HANDLER_OVERWORLD.warmUpAround(overworld, x >> 4, z >> 4, deadline) ||
+                        HANDLER_NETHER.warmUpAround(nether, MathHelper.floor(x / 8.0D) >> 4, MathHelper.floor(z / 8.0D) >> 4, deadline);
+            } else if (player.dimension == DimensionType.NETHER) {
+                unfinished = HANDLER_NETHER.warmUpAround(nether, x >> 4, z >> 4, deadline) ||
+                        HANDLER_OVERWORLD.warmUpAround(overworld, (x * 8) >> 4, (z * 8) >> 4, deadline);
+            } else {
+                unfinished = false;
+            }
+            if (unfinished) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public void clear() {
         chunkPortalMapping.clear();
     }
@@ -7,6 +7,8 @@ import carpet.utils.TISCMConfig;
  * Great thanks to lithium mod team for providing such OP optimizations
  * Lithium mod repos: https://github.com/jellysquid3/lithium-fabric
  *
+ * Non-final switches can be changed at runtime with carpet rules, see {@link carpet.settings.CarpetSettings}
+ *
  * See also: {@link TISCMConfig}
  */
 @SuppressWarnings("PointlessBooleanExpression")
@@ -27,6 +29,9 @@ public class LithiumConfig
 	public static final boolean SHAPES_SPECIALIZED_SHAPES       = LITHIUM_ENABLE && true;
 	public static final boolean TAG                             = LITHIUM_ENABLE && true;
 	public static final boolean WORLD_BLOCK_ENTITY_TICKING      = LITHIUM_ENABLE && true;
-	public static final boolean WORLD_EXPLOSIONS                = LITHIUM_ENABLE && true;
-	public static final boolean WORLD_TICK_SCHEDULER            = LITHIUM_ENABLE && true;
+
+	// runtime switchable, rule lithiumExplosions
+	public static boolean WORLD_EXPLOSIONS                      = LITHIUM_ENABLE && true;
+	// runtime switchable, rule lithiumTickScheduler. Pending ticks are migrated at the start of the next tick
+	public static boolean WORLD_TICK_SCHEDULER                  = LITHIUM_ENABLE && true;
 }
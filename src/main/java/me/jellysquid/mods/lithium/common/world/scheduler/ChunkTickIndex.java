@@ -0,0 +1,63 @@
+package me.jellysquid.mods.lithium.common.world.scheduler;
+
+import it.unimi.dsi.fastutil.HashCommon;
+
+import java.util.Arrays;
+
+/**
+ * The ticks of a single chunk, stored in a flat array. Every tick remembers its slot in the array, so adding and removing
+ * a tick are constant time operations without hashing the position and target of the tick, and iterating over the ticks
+ * of a chunk for chunk saving and unloading only touches the array.
+ */
+public class ChunkTickIndex<T> {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private TickEntry<T>[] arr;
+
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public ChunkTickIndex() {
+        this.arr = (TickEntry<T>[]) new TickEntry[INITIAL_CAPACITY];
+        this.size = 0;
+    }
+
+    public void add(TickEntry<T> tick) {
+        if (this.size >= this.arr.length) {
+            this.arr = Arrays.copyOf(this.arr, HashCommon.nextPowerOfTwo(this.arr.length + 1));
+        }
+
+        tick.chunkSlot = this.size;
+        this.arr[this.size++] = tick;
+    }
+
+    /**
+     * Removes the tick by moving the last tick into its slot. Does nothing if the tick has already been removed.
+     */
+    public void remove(TickEntry<T> tick) {
+        int slot = tick.chunkSlot;
+
+        if (slot < 0) {
+            return;
+        }
+
+        TickEntry<T> last = this.arr[--this.size];
+        this.arr[slot] = last;
+        last.chunkSlot = slot;
+
+        this.arr[this.size] = null;
+        tick.chunkSlot = -1;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public TickEntry<T> getTickAtIndex(int index) {
+        return this.arr[index];
+    }
+
+    public boolean isEmpty() {
+        return this.size <= 0;
+    }
+}
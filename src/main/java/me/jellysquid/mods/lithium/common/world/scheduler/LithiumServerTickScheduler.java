@@ -1,12 +1,12 @@
 package me.jellysquid.mods.lithium.common.world.scheduler;
 
+import carpet.helpers.TileTickIslands;
 import carpet.logging.microtiming.MicroTimingLoggerManager;
 import carpet.logging.microtiming.tickstages.TileTickTickStageExtra;
 import carpet.settings.CarpetSettings;
 import it.unimi.dsi.fastutil.longs.Long2ObjectAVLTreeMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectSortedMap;
-import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import net.minecraft.block.Block;
 import net.minecraft.crash.CrashReport;
 import net.minecraft.crash.CrashReportCategory;
@@ -41,18 +41,22 @@ import java.util.function.Predicate;
  * - We avoid repeatedly asking if a chunk is available by trying to re-use the previous computation if it involves the
  *   same chunk, reducing a lot of map operations elsewhere.
  *
- * - Ticks are stored in a HashMap with their execution state, meaning that redstone gates and other blocks which check
+ * - Ticks are stored in a hash index with their execution state, meaning that redstone gates and other blocks which check
  *   to see if something is scheduled/executing will not have to scan a potentially very large array (which can occur
- *   when many ticks have been scheduled.)
+ *   when many ticks have been scheduled.) The index is keyed by the packed position and target of the tick, so queries
+ *   and re-scheduling an already scheduled tick allocate nothing.
+ *
+ * - The ticks of every chunk are kept in a flat array index, so collecting the ticks of a chunk for saving and
+ *   unloading only touches the ticks of the chunks around it, and the number of scheduled ticks is kept as a counter.
  */
 public class LithiumServerTickScheduler<T> extends ServerTickList<T> {
     private static final Predicate<TickEntry<?>> PREDICATE_ANY_TICK = entry -> true;
     private static final Predicate<TickEntry<?>> PREDICATE_ACTIVE_TICKS = entry -> !entry.consumed;
 
     private final Long2ObjectSortedMap<TickEntryQueue<T>> scheduledTicksOrdered = new Long2ObjectAVLTreeMap<>();
-    private final Long2ObjectOpenHashMap<Set<TickEntry<T>>> scheduledTicksByChunk = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectOpenHashMap<ChunkTickIndex<T>> scheduledTicksByChunk = new Long2ObjectOpenHashMap<>();
 
-    private final Map<NextTickListEntry<T>, TickEntry<T>> scheduledTicks = new HashMap<>();
+    private final TickEntryIndex<T> scheduledTicks = new TickEntryIndex<>();
     private final ArrayList<TickEntry<T>> executingTicks = new ArrayList<>();
 
     private final Predicate<T> invalidObjPredicate;
@@ -62,6 +66,9 @@ public class LithiumServerTickScheduler<T> extends ServerTickList<T> {
     // TISCM Micro Timing logger
     private boolean scheduleSuccess;
 
+    // The number of ticks with the scheduled flag set
+    private int scheduledCount = 0;
+
     public LithiumServerTickScheduler(WorldServer world, Predicate<T> invalidPredicate, Function<T, ResourceLocation> idToName, Function<ResourceLocation, T> deserializerIn, Consumer<NextTickListEntry<T>> tickConsumer) {
         super(world, invalidPredicate, idToName, deserializerIn, tickConsumer);
 
@@ -76,6 +83,11 @@ public class LithiumServerTickScheduler<T> extends ServerTickList<T> {
 
         this.selectTicks(this.world.getChunkProvider(), this.world.getGameTime());
 
+        // TISCM tile tick island profiling
+        if (TileTickIslands.isRecording()) {
+            TileTickIslands.onTicksSelected(this.world, this.executingTicks);
+        }
+
         this.world.profiler.endStartSection("executing");
 
         this.executeTicks(this.tickConsumer);
@@ -85,7 +97,7 @@ public class LithiumServerTickScheduler<T> extends ServerTickList<T> {
 
     @Override
     public boolean isTickPending(BlockPos pos, T obj) {
-        TickEntry<T> entry = this.scheduledTicks.get(new NextTickListEntry<>(pos, obj));
+        TickEntry<T> entry = this.scheduledTicks.get(pos, obj);
 
         if (entry == null) {
             return false;
@@ -96,7 +108,7 @@ public class LithiumServerTickScheduler<T> extends ServerTickList<T> {
 
     @Override
     public boolean isTickScheduled(BlockPos pos, T obj) {
-        TickEntry<T> entry = this.scheduledTicks.get(new NextTickListEntry<>(pos, obj));
+        TickEntry<T> entry = this.scheduledTicks.get(pos, obj);
 
         if (entry == null) {
             return false;
@@ -121,7 +133,7 @@ public class LithiumServerTickScheduler<T> extends ServerTickList<T> {
         List<NextTickListEntry<T>> list = this.getPending(box, false);
 
         for (NextTickListEntry<T> tick : list) {
-            this.addScheduledTick(new NextTickListEntry<>(tick.position.add(pos), tick.getTarget(), tick.scheduledTime, tick.priority));
+            this.addScheduledTick(tick.position.add(pos), tick.getTarget(), tick.scheduledTime, tick.priority);
         }
     }
 
@@ -147,7 +159,7 @@ public class LithiumServerTickScheduler<T> extends ServerTickList<T> {
     @Override
     protected void scheduleUpdateNoLoadedCheck(BlockPos pos, T obj, int delay, TickPriority priority) {
         if (!this.invalidObjPredicate.test(obj)) {
-            this.addScheduledTick(new NextTickListEntry<>(pos, obj, (long) delay + this.world.getGameTime(), priority));
+            this.addScheduledTick(pos, obj, (long) delay + this.world.getGameTime(), priority);
         }
     }
 
@@ -164,15 +176,33 @@ public class LithiumServerTickScheduler<T> extends ServerTickList<T> {
      * Returns the number of currently scheduled ticks.
      */
     public int getTicks() {
-        int count = 0;
+        return this.scheduledCount;
+    }
 
-        for (TickEntry<T> entry : this.scheduledTicks.values()) {
-            if (entry.scheduled) {
-                count += 1;
+    /**
+     * Removes all scheduled ticks and returns them in execution order, used when switching the tick scheduler at runtime.
+     * Only call it between ticks, when nothing is executing.
+     */
+    @Override
+    public List<NextTickListEntry<T>> drainPending() {
+        List<NextTickListEntry<T>> ret = new ArrayList<>();
+
+        for (TickEntryQueue<T> list : this.scheduledTicksOrdered.values()) {
+            for (int i = 0; i < list.size(); i++) {
+                TickEntry<T> tick = list.getTickAtIndex(i);
+
+                if (tick.scheduled) {
+                    ret.add(tick);
+                }
             }
         }
 
-        return count;
+        this.scheduledTicksOrdered.clear();
+        this.scheduledTicksByChunk.clear();
+        this.scheduledTicks.clear();
+        this.scheduledCount = 0;
+
+        return ret;
     }
 
     /**
@@ -229,6 +259,7 @@ public class LithiumServerTickScheduler<T> extends ServerTickList<T> {
                     if (canTick) {
                         tick.scheduled = false;
                         tick.executing = true;
+                        this.scheduledCount--;
 
                         this.executingTicks.add(tick);
 
@@ -269,7 +300,14 @@ public class LithiumServerTickScheduler<T> extends ServerTickList<T> {
                 tick.executing = false;
 
                 // Perform tick execution
-                consumer.accept(tick);
+                // TISCM tile tick island profiling
+                if (TileTickIslands.isRecording()) {
+                    TileTickIslands.onTickStart(this.world, tick);
+                    consumer.accept(tick);
+                    TileTickIslands.onTickEnd(this.world);
+                } else {
+                    consumer.accept(tick);
+                }
 
                 // If the tick didn't get re-scheduled, we're finished and this tick should be deleted
                 if (!tick.scheduled) {
@@ -306,13 +344,14 @@ public class LithiumServerTickScheduler<T> extends ServerTickList<T> {
             for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
                 long chunk = ChunkPos.asLong(chunkX, chunkZ);
 
-                Set<TickEntry<T>> set = this.scheduledTicksByChunk.get(chunk);
+                ChunkTickIndex<T> index = this.scheduledTicksByChunk.get(chunk);
 
-                if (set == null) {
+                if (index == null) {
                     continue;
                 }
 
-                for (TickEntry<T> tick : set) {
+                for (int i = 0; i < index.size(); i++) {
+                    TickEntry<T> tick = index.getTickAtIndex(i);
                     BlockPos pos = tick.position;
 
                     // [VanillaCopy] ServerTickScheduler#transferTickInBounds
@@ -342,43 +381,61 @@ public class LithiumServerTickScheduler<T> extends ServerTickList<T> {
      * Schedules a tick for execution if it has not already been. To match vanilla, we do not re-schedule matching
      * scheduled ticks which are set to execute at a different time.
      */
-    private void addScheduledTick(NextTickListEntry<T> tick) {
-        TickEntry<T> entry = this.scheduledTicks.computeIfAbsent(tick, this::createTickEntry);
+    private void addScheduledTick(BlockPos pos, T obj, long time, TickPriority priority) {
+        TickEntry<T> entry = this.scheduledTicks.get(pos, obj);
+
+        if (entry == null) {
+            entry = this.createTickEntry(pos, obj, time, priority);
+            this.scheduledTicks.put(entry);
+        }
 
         // TISCM Micro Timing logger
         this.scheduleSuccess = !entry.scheduled;
 
         if (!entry.scheduled) {
-            TickEntryQueue<T> timeIdx = this.scheduledTicksOrdered.computeIfAbsent(getBucketKey(tick.scheduledTime, tick.priority), key -> new TickEntryQueue<>());
+            TickEntryQueue<T> timeIdx = this.scheduledTicksOrdered.get(getBucketKey(time, priority));
+
+            if (timeIdx == null) {
+                timeIdx = new TickEntryQueue<>();
+                this.scheduledTicksOrdered.put(getBucketKey(time, priority), timeIdx);
+            }
+
             timeIdx.push(entry);
 
             entry.scheduled = true;
+            this.scheduledCount++;
         }
     }
 
-    private TickEntry<T> createTickEntry(NextTickListEntry<T> tick) {
-        Set<TickEntry<T>> chunkIdx = this.scheduledTicksByChunk.computeIfAbsent(getChunkKey(tick.position), LithiumServerTickScheduler::createChunkIndex);
+    private TickEntry<T> createTickEntry(BlockPos pos, T obj, long time, TickPriority priority) {
+        ChunkTickIndex<T> chunkIdx = this.scheduledTicksByChunk.get(getChunkKey(pos));
+
+        if (chunkIdx == null) {
+            chunkIdx = new ChunkTickIndex<>();
+            this.scheduledTicksByChunk.put(getChunkKey(pos), chunkIdx);
+        }
 
-        return new TickEntry<>(tick, chunkIdx);
+        return new TickEntry<>(pos, obj, time, priority, chunkIdx);
     }
 
     private void removeTickEntry(TickEntry<T> tick) {
+        if (tick.scheduled) {
+            this.scheduledCount--;
+        }
+
         tick.scheduled = false;
         tick.consumed = true;
 
         tick.chunkIdx.remove(tick);
 
-        if (tick.chunkIdx.isEmpty()) {
+        // Only remove the index of the chunk if it's still the current one, a removed tick might be removed again
+        if (tick.chunkIdx.isEmpty() && this.scheduledTicksByChunk.get(getChunkKey(tick.position)) == tick.chunkIdx) {
             this.scheduledTicksByChunk.remove(getChunkKey(tick.position));
         }
 
         this.scheduledTicks.remove(tick);
     }
 
-    private static <T> Set<TickEntry<T>> createChunkIndex(long pos) {
-        return new ObjectOpenHashSet<>(8);
-    }
-
     // Computes a chunk key from a block position
     private static long getChunkKey(BlockPos pos) {
         return ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4);
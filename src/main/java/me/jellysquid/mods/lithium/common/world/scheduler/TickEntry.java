@@ -1,8 +1,8 @@
 package me.jellysquid.mods.lithium.common.world.scheduler;
 
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.NextTickListEntry;
-
-import java.util.Set;
+import net.minecraft.world.TickPriority;
 
 /**
  * A wrapper type for {@link NextTickListEntry} which adds fields to mark the state of the tick in the scheduler's pipeline.
@@ -32,10 +32,19 @@ public class TickEntry<T> extends NextTickListEntry<T> {
     /**
      * A pointer to the chunk index belonging to this scheduled tick.
      */
-    public final Set<TickEntry<T>> chunkIdx;
+    public final ChunkTickIndex<T> chunkIdx;
+
+    /**
+     * The slot of this tick in its chunk index, or -1 once it has been removed from it.
+     */
+    int chunkSlot = -1;
+
+    public TickEntry(NextTickListEntry<T> tick, ChunkTickIndex<T> chunkIdx) {
+        this(tick.position, tick.getTarget(), tick.scheduledTime, tick.priority, chunkIdx);
+    }
 
-    public TickEntry(NextTickListEntry<T> tick, Set<TickEntry<T>> chunkIdx) {
-        super(tick.position, tick.getTarget(), tick.scheduledTime, tick.priority);
+    public TickEntry(BlockPos pos, T target, long scheduledTime, TickPriority priority, ChunkTickIndex<T> chunkIdx) {
+        super(pos, target, scheduledTime, priority);
 
         this.chunkIdx = chunkIdx;
         this.chunkIdx.add(this);
@@ -0,0 +1,134 @@
+package me.jellysquid.mods.lithium.common.world.scheduler;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash index of ticks keyed by their packed position and target, with the same equality as
+ * {@link net.minecraft.world.NextTickListEntry}. Unlike a HashMap keyed by tick objects, looking up whether a tick is
+ * scheduled doesn't require allocating a key, which is what redstone components do every time they are updated.
+ */
+public class TickEntryIndex<T> {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] positions;
+    private Object[] targets;
+    private TickEntry<T>[] entries;
+
+    private int mask;
+    private int size;
+
+    public TickEntryIndex() {
+        this.allocate(INITIAL_CAPACITY);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        this.positions = new long[capacity];
+        this.targets = new Object[capacity];
+        this.entries = (TickEntry<T>[]) new TickEntry[capacity];
+        this.mask = capacity - 1;
+    }
+
+    private static int hash(long pos, Object target) {
+        // Blocks and fluids don't override hashCode, so this is their identity hash
+        return HashCommon.mix((int) (pos ^ (pos >>> 32)) * 31 + target.hashCode());
+    }
+
+    public TickEntry<T> get(BlockPos pos, T target) {
+        long packed = pos.toLong();
+
+        for (int slot = hash(packed, target) & this.mask; this.entries[slot] != null; slot = (slot + 1) & this.mask) {
+            if (this.positions[slot] == packed && this.targets[slot] == target) {
+                return this.entries[slot];
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Adds a tick, which must not be equal to a tick already in the index.
+     */
+    public void put(TickEntry<T> tick) {
+        if (this.size >= (this.mask + 1) / 2) {
+            this.rehash((this.mask + 1) * 2);
+        }
+
+        this.insert(tick.position.toLong(), tick);
+        this.size++;
+    }
+
+    private void insert(long packed, TickEntry<T> tick) {
+        int slot = hash(packed, tick.getTarget()) & this.mask;
+
+        while (this.entries[slot] != null) {
+            slot = (slot + 1) & this.mask;
+        }
+
+        this.positions[slot] = packed;
+        this.targets[slot] = tick.getTarget();
+        this.entries[slot] = tick;
+    }
+
+    /**
+     * Removes this very tick, does nothing if it's not in the index (e.g. an equal tick has replaced it).
+     */
+    public void remove(TickEntry<T> tick) {
+        long packed = tick.position.toLong();
+        int slot = hash(packed, tick.getTarget()) & this.mask;
+
+        while (this.entries[slot] != tick) {
+            if (this.entries[slot] == null) {
+                return;
+            }
+
+            slot = (slot + 1) & this.mask;
+        }
+
+        this.size--;
+
+        // Shift the following entries of the probe sequence back, so lookups don't need tombstones
+        int gap = slot;
+
+        for (int next = (gap + 1) & this.mask; this.entries[next] != null; next = (next + 1) & this.mask) {
+            int home = hash(this.positions[next], this.targets[next]) & this.mask;
+
+            // Move the entry into the gap if the gap lies cyclically between its home slot and its current slot
+            if (((next - home) & this.mask) >= ((next - gap) & this.mask)) {
+                this.positions[gap] = this.positions[next];
+                this.targets[gap] = this.targets[next];
+                this.entries[gap] = this.entries[next];
+                gap = next;
+            }
+        }
+
+        this.targets[gap] = null;
+        this.entries[gap] = null;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldPositions = this.positions;
+        TickEntry<T>[] oldEntries = this.entries;
+
+        this.allocate(capacity);
+
+        for (int i = 0; i < oldEntries.length; i++) {
+            if (oldEntries[i] != null) {
+                this.insert(oldPositions[i], oldEntries[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public void clear() {
+        Arrays.fill(this.targets, null);
+        Arrays.fill(this.entries, null);
+        this.size = 0;
+    }
+}